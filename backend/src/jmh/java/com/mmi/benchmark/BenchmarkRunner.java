@@ -0,0 +1,29 @@
+package com.mmi.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Ponto de entrada do perfil jmh (mvn -Pjmh test-compile exec:exec). Aceita as mesmas opções da
+// linha de comando do JMH e liga sempre o GCProfiler, que reporta a alocação por operação
+// (gc.alloc.rate.norm) ao lado do tempo.
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cli = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(cli)
+                .addProfiler(GCProfiler.class);
+        if (cli.getIncludes().isEmpty()) {
+            options.include("com\\.mmi\\.benchmark\\..*");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.mmi.benchmark;
+
+import com.mmi.api.services.ClauseLayoutCache;
+import com.mmi.api.services.ContractFonts;
+import com.mmi.api.services.ContractImageEmbedder;
+import com.mmi.api.services.ContractLayout;
+import com.mmi.api.services.ContractLetterhead;
+import com.mmi.api.services.ContractPdfCache;
+import com.mmi.api.services.ContractRenderPool;
+import com.mmi.api.services.ContractService;
+import com.mmi.api.services.ContractSignaturePage;
+import com.mmi.models.dto.ClauseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Monta o ContractService sem Spring e sem serviços externos (Cloudinary/Clicksign/banco ficam
+// nulos: generateContractPDF não usa nenhum deles) e gera cláusulas e fotos sintéticas.
+final class ContractFixtures {
+
+    private static final String[] WORDS = {
+            "o", "locatário", "se", "obriga", "a", "pagar", "aluguel", "mensal", "até", "dia", "cada", "mês",
+            "sob", "pena", "de", "multa", "sobre", "valor", "devido", "acrescida", "juros", "mora", "correção",
+            "monetária", "pelo", "índice", "imóvel", "contrato", "partes", "foro", "comarca", "vistoria"};
+
+    private ContractFixtures() {
+    }
+
+    // Os benchmarks usam generateContractPDF em memória: do ContractRenderPool só vale a configuração de spill.
+    // embeddedFonts=false mede o caminho antigo, com a Times Type1 padrão.
+    static ContractService contractService(ThreadPoolTaskExecutor imageExecutor, boolean embeddedFonts) throws IOException {
+        ContractRenderPool renderPool = new ContractRenderPool(imageExecutor, new SimpleMeterRegistry(), 1024, 8, "", 60_000);
+        ContractLayout layout = new ContractLayout(new ContractFonts(embeddedFonts));
+        return new ContractService(null, null, null, null,
+                new ContractLetterhead(), null, layout,
+                new ContractImageEmbedder(imageExecutor, 150, 0.85f), renderPool, new ContractSignaturePage(layout),
+                new ContractPdfCache("", 0, new SimpleMeterRegistry()), new ClauseLayoutCache(layout, new SimpleMeterRegistry()));
+    }
+
+    static ThreadPoolTaskExecutor imageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(32);
+        executor.setThreadNamePrefix("bench-image-");
+        executor.initialize();
+        return executor;
+    }
+
+    // boldDensity: fração das palavras marcadas com *negrito*
+    static List<ClauseDTO> clauses(int count, int wordsPerParagraph, double boldDensity, long seed) {
+        Random random = new Random(seed);
+        List<ClauseDTO> clauses = new ArrayList<>(count);
+        for (int c = 0; c < count; c++) {
+            StringBuilder content = new StringBuilder();
+            for (int p = 0; p < 2; p++) {
+                if (p > 0) content.append('\n');
+                for (int w = 0; w < wordsPerParagraph; w++) {
+                    String word = WORDS[random.nextInt(WORDS.length)];
+                    if (w > 0) content.append(' ');
+                    content.append(random.nextDouble() < boldDensity ? "*" + word + "*" : word);
+                }
+                content.append('.');
+            }
+            clauses.add(new ClauseDTO("CLÁUSULA " + (c + 1) + " - DAS OBRIGAÇÕES", content.toString()));
+        }
+        return clauses;
+    }
+
+    // Fotos "de câmera" (12 MP) em JPEG, com ruído para não comprimirem artificialmente bem
+    static List<MultipartFile> photos(int count, long seed) throws IOException {
+        Random random = new Random(seed);
+        List<MultipartFile> files = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            BufferedImage image = new BufferedImage(4000, 3000, BufferedImage.TYPE_3BYTE_BGR);
+            Graphics2D g = image.createGraphics();
+            for (int s = 0; s < 2000; s++) {
+                g.setColor(new Color(random.nextInt(0xFFFFFF)));
+                g.fillOval(random.nextInt(4000), random.nextInt(3000), 20 + random.nextInt(300), 20 + random.nextInt(300));
+            }
+            g.dispose();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "jpg", out);
+            files.add(new MockMultipartFile("files", "foto" + i + ".jpg", "image/jpeg", out.toByteArray()));
+        }
+        return files;
+    }
+}
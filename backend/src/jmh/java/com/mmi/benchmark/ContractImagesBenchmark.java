@@ -0,0 +1,59 @@
+package com.mmi.benchmark;
+
+import com.mmi.api.services.ContractService;
+import com.mmi.models.dto.ClauseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// generateContractPDF com fotos anexadas (12 MP cada) sobre um contrato típico de 20 cláusulas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ContractImagesBenchmark {
+
+    @Param({"0", "4", "16"})
+    public int images;
+
+    private ThreadPoolTaskExecutor imageExecutor;
+    private ContractService contractService;
+    private List<ClauseDTO> content;
+    private List<MultipartFile> photos;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        imageExecutor = ContractFixtures.imageExecutor();
+        contractService = ContractFixtures.contractService(imageExecutor, true);
+        content = ContractFixtures.clauses(20, 60, 0.1, 42);
+        photos = ContractFixtures.photos(images, 7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        imageExecutor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] generate() throws IOException {
+        return contractService.generateContractPDF("Contrato de Locação Residencial", content, photos);
+    }
+}
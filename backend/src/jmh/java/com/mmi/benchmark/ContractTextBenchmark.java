@@ -0,0 +1,67 @@
+package com.mmi.benchmark;
+
+import com.mmi.api.services.ContractService;
+import com.mmi.models.dto.ClauseDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// generateContractPDF só com texto: quantidade de cláusulas, tamanho dos parágrafos, densidade de negrito e fontes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx1g")
+public class ContractTextBenchmark {
+
+    @Param({"1", "20", "200"})
+    public int clauses;
+
+    // Palavras por parágrafo (cada cláusula tem dois parágrafos)
+    @Param({"20", "120"})
+    public int paragraphWords;
+
+    @Param({"0.0", "0.1", "0.5"})
+    public double boldDensity;
+
+    // embedded: Liberation Serif TrueType em subconjunto; type1: Times padrão, não embutida
+    @Param({"embedded", "type1"})
+    public String fonts;
+
+    private ThreadPoolTaskExecutor imageExecutor;
+    private ContractService contractService;
+    private List<ClauseDTO> content;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        imageExecutor = ContractFixtures.imageExecutor();
+        contractService = ContractFixtures.contractService(imageExecutor, "embedded".equals(fonts));
+        content = ContractFixtures.clauses(clauses, paragraphWords, boldDensity, 42);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        imageExecutor.shutdown();
+    }
+
+    @Benchmark
+    public byte[] generate() throws IOException {
+        return contractService.generateContractPDF("Contrato de Locação Residencial", content);
+    }
+}
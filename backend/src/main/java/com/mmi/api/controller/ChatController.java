@@ -1,22 +1,33 @@
 package com.mmi.api.controller;
 
 import com.mmi.api.services.AiService;
+import com.mmi.api.services.ChatMetrics;
 import com.mmi.models.dto.ChatRequestDTO;
 import com.mmi.models.dto.ChatResponseDTO;
+import com.mmi.models.dto.ChatUsageDTO;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/chat")
 @RequiredArgsConstructor
 public class ChatController {
 
     private final AiService aiService;
+    private final ChatMetrics chatMetrics;
 
     @PostMapping
     public ResponseEntity<ChatResponseDTO> chat(@RequestBody ChatRequestDTO request) {
         ChatResponseDTO response = aiService.processMessage(request);
         return ResponseEntity.ok(response);
     }
+
+    // Tokens, falhas e custo estimado por dia (mais recente primeiro)
+    @GetMapping("/usage")
+    public ResponseEntity<List<ChatUsageDTO>> usage(@RequestParam(defaultValue = "7") int days) {
+        return ResponseEntity.ok(chatMetrics.usage(days));
+    }
 }
\ No newline at end of file
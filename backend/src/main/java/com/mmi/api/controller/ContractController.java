@@ -1,17 +1,36 @@
 package com.mmi.api.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmi.api.services.ContractBatchService;
+import com.mmi.api.services.ContractJobService;
+import com.mmi.api.services.ContractPdfCache;
 import com.mmi.api.services.ContractService;
+import com.mmi.api.services.ContractSignerService;
+import com.mmi.infra.storage.BlobResponses;
+import com.mmi.infra.storage.BlobStorage;
 import com.mmi.models.Contract;
-import com.mmi.models.Signature;
+import com.mmi.models.dto.BatchContractRequest;
+import com.mmi.models.dto.ContractJobDTO;
 import com.mmi.models.dto.CreateContractRequest;
+import com.mmi.models.dto.PdfCacheStatsDTO;
 import com.mmi.models.dto.SignatureDTO;
+import com.mmi.models.dto.SignerResultDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.UUID;
 
@@ -21,10 +40,22 @@ public class ContractController {
 
     private final ContractService contractService;
     private final ObjectMapper objectMapper; // Instância do Jackson para converter String em Objeto
-
-    public ContractController(ContractService contractService, ObjectMapper objectMapper) {
+    private final BlobStorage blobStorage;
+    private final ContractJobService contractJobService;
+    private final ContractBatchService contractBatchService;
+    private final ContractPdfCache contractPdfCache;
+    private final ContractSignerService contractSignerService;
+
+    public ContractController(ContractService contractService, ObjectMapper objectMapper, BlobStorage blobStorage,
+                              ContractJobService contractJobService, ContractBatchService contractBatchService,
+                              ContractPdfCache contractPdfCache, ContractSignerService contractSignerService) {
         this.contractService = contractService;
         this.objectMapper = objectMapper;
+        this.blobStorage = blobStorage;
+        this.contractJobService = contractJobService;
+        this.contractBatchService = contractBatchService;
+        this.contractPdfCache = contractPdfCache;
+        this.contractSignerService = contractSignerService;
     }
 
 
@@ -33,7 +64,7 @@ public class ContractController {
         return contractService.findAllContracts();
     }
 
-    // ALTERADO: Agora aceita Multipart Form Data (JSON + Arquivos)
+    // Aceita Multipart Form Data (JSON + Arquivos) e devolve na hora o job que vai gerar o contrato
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<?> createContract(
             @RequestPart("data") String contractDataJson, // Recebe o JSON como String
@@ -43,30 +74,119 @@ public class ContractController {
             // Converte manualmente a String JSON para o objeto CreateContractRequest
             CreateContractRequest request = objectMapper.readValue(contractDataJson, CreateContractRequest.class);
 
-            // Chama o serviço passando os arquivos
-            Contract contract = contractService.createContractWithImages(request, files);
+            ContractJobDTO job = contractJobService.submit(request, files);
 
-            return ResponseEntity.ok(contract.getUuid());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/contracts/jobs/" + job.id()))
+                    .body(job);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
         } catch (Exception e) {
             e.printStackTrace();
             return ResponseEntity.internalServerError().body("Erro ao criar contrato: " + e.getMessage());
         }
     }
 
+    // Vários contratos do mesmo modelo (cláusulas + {{variáveis}}), devolvidos como um zip em streaming
+    @PostMapping("/batch")
+    public ResponseEntity<StreamingResponseBody> createBatch(@RequestBody BatchContractRequest request) {
+        ContractBatchService.PreparedBatch batch;
+        try {
+            batch = contractBatchService.prepare(request);
+        } catch (IllegalArgumentException e) {
+            return textResponse(HttpStatus.BAD_REQUEST, e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return textResponse(HttpStatus.INTERNAL_SERVER_ERROR, "Erro ao preparar o lote: " + e.getMessage());
+        }
+
+        StreamingResponseBody body = out -> contractBatchService.writeZip(batch, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename("contratos.zip").build().toString())
+                .body(body);
+    }
+
+    // Andamento da criação (polling)
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ContractJobDTO> getJob(@PathVariable String jobId) {
+        return contractJobService.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Andamento da criação via Server-Sent Events (evento "status" a cada mudança de etapa)
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJob(@PathVariable String jobId) {
+        return contractJobService.subscribe(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    // Estatísticas do cache de PDFs gerados (acertos, falhas, despejos, ocupação)
+    @GetMapping("/pdf-cache")
+    public PdfCacheStatsDTO getPdfCacheStats() {
+        return contractPdfCache.stats();
+    }
+
     @GetMapping("/{uuid}")
     public ResponseEntity<Contract> getContract(@PathVariable UUID uuid) {
         Contract contract = contractService.getContractByUuid(uuid);
         return ResponseEntity.ok(contract);
     }
 
+    // PDF do contrato direto do BlobStorage (suporta Range e sendfile)
+    @GetMapping("/{uuid}/pdf")
+    public ResponseEntity<Resource> getContractPdf(@PathVariable UUID uuid,
+                                                   HttpServletRequest request,
+                                                   HttpServletResponse response) throws IOException {
+        Contract contract = contractService.getContractByUuid(uuid);
+        if (contract.getPdfBlob() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return BlobResponses.serve(blobStorage, contract.getPdfBlob(), MediaType.APPLICATION_PDF,
+                "contrato_" + contract.getUuid() + ".pdf", request, response);
+    }
+
+    // Via assinada arquivada do Clicksign (404 enquanto o documento não fechou ou o download não terminou)
+    @GetMapping("/{uuid}/signed-pdf")
+    public ResponseEntity<Resource> getSignedContractPdf(@PathVariable UUID uuid,
+                                                         HttpServletRequest request,
+                                                         HttpServletResponse response) throws IOException {
+        Contract contract = contractService.getContractByUuid(uuid);
+        if (contract.getSignedPdfBlob() == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return BlobResponses.serve(blobStorage, contract.getSignedPdfBlob(), MediaType.APPLICATION_PDF,
+                "contrato_" + contract.getUuid() + "_assinado.pdf", request, response);
+    }
+
+    // Reenvio ao Clicksign de um contrato cujo envio falhou na criação (status FALHA_ENVIO)
+    @PostMapping("/{uuid}/send")
+    public ResponseEntity<?> resendContract(@PathVariable UUID uuid) {
+        try {
+            return ResponseEntity.ok(contractService.resendToClicksign(uuid));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Erro ao enviar ao Clicksign: " + e.getMessage());
+        }
+    }
+
     @PostMapping("/{uuid}/signatures")
     public ResponseEntity<?> addSignature(
             @PathVariable UUID uuid,
             @RequestBody SignatureDTO signatureDTO) {
 
         try {
-            Signature newSignature = contractService.addSignerToContract(uuid, signatureDTO);
-            return new ResponseEntity<>(newSignature, HttpStatus.CREATED);
+            SignerResultDTO result = contractSignerService.addSigners(uuid, List.of(signatureDTO)).get(0);
+            if (result.error() != null) {
+                return ResponseEntity.internalServerError().body("Erro ao processar assinatura: " + result.error());
+            }
+            return new ResponseEntity<>(result.signature(), HttpStatus.CREATED);
         } catch (IllegalStateException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
@@ -75,6 +195,27 @@ public class ContractController {
         }
     }
 
+    // Todos os signatários de uma vez. 201 se todos entraram, 207 se só parte (ver error de cada um),
+    // 502 se o Clicksign recusou todos.
+    @PostMapping("/{uuid}/signatures/bulk")
+    public ResponseEntity<?> addSignatures(
+            @PathVariable UUID uuid,
+            @RequestBody List<SignatureDTO> signers) {
+
+        try {
+            List<SignerResultDTO> results = contractSignerService.addSigners(uuid, signers);
+            long failed = results.stream().filter(r -> r.error() != null).count();
+            HttpStatus status = failed == 0 ? HttpStatus.CREATED
+                    : failed < results.size() ? HttpStatus.MULTI_STATUS : HttpStatus.BAD_GATEWAY;
+            return ResponseEntity.status(status).body(results);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body("Erro ao processar assinaturas: " + e.getMessage());
+        }
+    }
+
     @PutMapping("/{uuid}")
     public ResponseEntity<Contract> updateContract(@PathVariable UUID uuid, @RequestBody CreateContractRequest request) {
         Contract updated = contractService.updateContract(uuid, request.getTitle());
@@ -87,4 +228,9 @@ public class ContractController {
         return ResponseEntity.noContent().build();
     }
 
-}
\ No newline at end of file
+    private static ResponseEntity<StreamingResponseBody> textResponse(HttpStatus status, String message) {
+        return ResponseEntity.status(status)
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
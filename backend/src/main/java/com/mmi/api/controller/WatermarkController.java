@@ -3,7 +3,6 @@ package com.mmi.api.controller;
 import com.mmi.api.services.WatermarkService;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -16,22 +15,33 @@ public class WatermarkController {
     @Autowired
     private WatermarkService watermarkService;
 
+    // Saída no formato da foto (JPEG continua JPEG) ou no pedido em format=jpeg|png; quality (0-1) vale para JPEG
     @PostMapping(value = "/watermark")
     public void addWatermark(
             @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", required = false) String format,
+            @RequestParam(value = "quality", required = false) Float quality,
             HttpServletResponse response) {
 
         try {
-            // Configura os headers da resposta antes de começar a escrever
-            response.setContentType(MediaType.IMAGE_PNG_VALUE);
-
             float opacity = 0.5f;
 
-            // Passa o outputStream da resposta para o serviço escrever direto nele
-            watermarkService.addWatermark(file, response.getOutputStream(), opacity);
+            WatermarkService.WatermarkedImage image = watermarkService.addWatermark(file, opacity, format, quality);
+
+            // Configura os headers da resposta antes de começar a escrever
+            response.setContentType(image.mediaType().toString());
+
+            // Codifica direto no outputStream da resposta
+            image.writeTo(response.getOutputStream());
 
             response.flushBuffer();
 
+        } catch (IllegalArgumentException e) {
+            try {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
         } catch (IOException e) {
             // Em caso de erro IO, tenta enviar erro 500 (se a resposta já não tiver sido iniciada)
             try {
@@ -3,7 +3,8 @@ package com.mmi.api.services;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.mmi.infra.PropertyRepository;
+import com.mmi.infra.http.HttpTarget;
+import com.mmi.infra.http.OutboundHttp;
 import com.mmi.models.Property;
 import com.mmi.models.dto.ChatRequestDTO;
 import com.mmi.models.dto.ChatResponseDTO;
@@ -12,15 +13,13 @@ import com.mmi.models.dto.PropertyAiContextDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -30,32 +29,56 @@ import java.util.stream.Collectors;
 @Slf4j
 public class AiService {
 
-    private final PropertyRepository propertyRepository;
-    private final LeadService leadService;
+    private final PropertyCatalogCache catalogCache;
+    private final ChatFastPath chatFastPath;
+    private final LeadCaptureService leadCaptureService;
+    private final ChatBulkhead chatBulkhead;
+    private final ChatMetrics chatMetrics;
     private final ObjectMapper objectMapper;
+    private final OutboundHttp outboundHttp;
 
     @Value("${openai.api.key}")
     private String apiKey;
 
-    private static final String OPENAI_URL = "https://api.openai.com/v1/chat/completions";
+    // OPENAI_URL permite apontar para um stub local (testes de carga sem gastar crédito)
+    @Value("${openai.api.url}")
+    private String openAiUrl;
+
+    // Regex para extrair o JSON escondido (compilada uma vez só)
+    private static final Pattern LEAD_DATA_PATTERN =
+            Pattern.compile("\\|\\|\\|LEAD_DATA_START\\|\\|\\|(.*?)\\|\\|\\|LEAD_DATA_END\\|\\|\\|", Pattern.DOTALL);
+
+    private static final String OVERLOADED_MESSAGE =
+            "Estou com muitas conversas no momento. Pode me mandar sua mensagem de novo em alguns instantes?";
 
     public ChatResponseDTO processMessage(ChatRequestDTO request) {
+        // Perguntas simples de catálogo e envio de contato são respondidos localmente
+        Optional<ChatResponseDTO> local = chatFastPath.tryAnswer(request);
+        if (local.isPresent()) {
+            return local.get();
+        }
+
+        // Conversas com a OpenAI passam pelo bulkhead; excedente recebe resposta imediata
+        return chatBulkhead.execute(request.getVisitorId(),
+                () -> answerWithOpenAi(request),
+                () -> new ChatResponseDTO(OVERLOADED_MESSAGE, false));
+    }
+
+    private ChatResponseDTO answerWithOpenAi(ChatRequestDTO request) {
         // 1. Buscar contexto de imóveis (RAG Simplificado)
         // DICA: Em produção, filtre apenas campos essenciais para economizar tokens
-        List<Property> properties = propertyRepository.findAll();
-        String propertyContext = formatPropertiesForAi(properties);
-
-        // 2. Construir o Prompt do Sistema
-        String systemPrompt = buildSystemPrompt(propertyContext);
+        String propertyContext = chatMetrics.time("retrieval",
+                () -> formatPropertiesForAi(catalogCache.getProperties()));
 
-        // 3. Montar o payload para a OpenAI
-        Map<String, Object> requestBody = buildOpenAiRequest(systemPrompt, request.getHistory(), request.getMessage());
+        // 2 e 3. Construir o Prompt do Sistema e montar o payload para a OpenAI
+        Map<String, Object> requestBody = chatMetrics.time("prompt",
+                () -> buildOpenAiRequest(buildSystemPrompt(propertyContext), request.getHistory(), request.getMessage()));
 
         // 4. Chamar a API
-        String aiRawResponse = callOpenAi(requestBody);
+        String aiRawResponse = chatMetrics.time("upstream", () -> callOpenAi(requestBody));
 
         // 5. Processar a resposta (Separar Texto vs Dados de Lead)
-        return parseAndHandleLead(aiRawResponse, request.getVisitorId());
+        return chatMetrics.time("lead", () -> parseAndHandleLead(aiRawResponse, request.getVisitorId()));
     }
 
     private String formatPropertiesForAi(List<Property> properties) {
@@ -103,9 +126,7 @@ public class AiService {
         String responseText = aiText;
         boolean leadCaptured = false;
 
-        // Regex para extrair o JSON escondido
-        Pattern pattern = Pattern.compile("\\|\\|\\|LEAD_DATA_START\\|\\|\\|(.*?)\\|\\|\\|LEAD_DATA_END\\|\\|\\|", Pattern.DOTALL);
-        Matcher matcher = pattern.matcher(aiText);
+        Matcher matcher = LEAD_DATA_PATTERN.matcher(aiText);
 
         if (matcher.find()) {
             String jsonRaw = matcher.group(1);
@@ -119,10 +140,10 @@ public class AiService {
                 extractedLead.setStatus("Novo");
                 extractedLead.setVisitorId(visitorId);
 
-                // Salva no banco
+                // Gravação no banco fica com o worker, a resposta volta sem esperar
                 log.info("Lead capturado pela IA: {}", extractedLead);
-                leadService.createOrUpdateLeadFromAi(extractedLead);
-                leadCaptured = true;
+                leadCaptured = leadCaptureService.submit(extractedLead);
+                if (leadCaptured) chatMetrics.recordLead();
 
             } catch (Exception e) {
                 log.error("Erro ao parsear lead da IA", e);
@@ -157,22 +178,34 @@ public class AiService {
         return body;
     }
 
+    // Conexões reaproveitadas do destino "openai"; POST não é repetido depois de enviado
     private String callOpenAi(Map<String, Object> body) {
-        RestTemplate restTemplate = new RestTemplate();
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.setBearerAuth(apiKey);
-
-        HttpEntity<Map<String, Object>> entity = new HttpEntity<>(body, headers);
+        HttpTarget openAi = outboundHttp.target("openai");
 
         try {
-            Map response = restTemplate.postForObject(OPENAI_URL, entity, Map.class);
+            Map response = openAi.execute(() -> openAi.restClient().post()
+                    .uri(openAiUrl)
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .headers(headers -> headers.setBearerAuth(apiKey))
+                    .body(body)
+                    .retrieve()
+                    .body(Map.class));
+            recordUsage(response);
             List<Map<String, Object>> choices = (List<Map<String, Object>>) response.get("choices");
             Map<String, Object> message = (Map<String, Object>) choices.get(0).get("message");
             return (String) message.get("content");
         } catch (Exception e) {
             log.error("Erro ao chamar OpenAI", e);
+            chatMetrics.recordFailure(e);
             return "Desculpe, estou com uma instabilidade momentânea. Pode repetir?";
         }
     }
-}
\ No newline at end of file
+
+    // Contagem de tokens devolvida pela OpenAI no campo "usage"
+    private void recordUsage(Map response) {
+        if (response == null || !(response.get("usage") instanceof Map<?, ?> usage)) return;
+        long prompt = usage.get("prompt_tokens") instanceof Number n ? n.longValue() : 0;
+        long completion = usage.get("completion_tokens") instanceof Number n ? n.longValue() : 0;
+        chatMetrics.recordUsage(prompt, completion);
+    }
+}
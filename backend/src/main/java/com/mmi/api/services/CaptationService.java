@@ -2,19 +2,21 @@ package com.mmi.api.services;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmi.infra.http.HttpTarget;
+import com.mmi.infra.http.OutboundHttp;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 @Service
+@Slf4j
 public class CaptationService {
 
     @Value("${google.api.key}")
@@ -25,6 +27,12 @@ public class CaptationService {
 
     private static final String GOOGLE_SEARCH_URL = "https://www.googleapis.com/customsearch/v1";
 
+    private final HttpTarget google;
+
+    public CaptationService(OutboundHttp outboundHttp) {
+        this.google = outboundHttp.target("google");
+    }
+
     // ATUALIZE A ASSINATURA DO MÉTODO
     public List<String> buscarImoveis(String termo, String precoMin, String precoMax) {
         List<String> links = new ArrayList<>();
@@ -55,21 +63,19 @@ public class CaptationService {
                     googleApiKey,
                     googleCxId);
 
-            // Log para depuração (opcional, mas útil)
-            System.out.println("Google Search Query URL: " + query);
+            // A URL leva a chave da API: no log vai só o termo
+            log.debug("Busca no Google: {}", termoCompleto);
 
-            HttpClient client = HttpClient.newHttpClient();
-            HttpRequest request = HttpRequest.newBuilder()
+            // Query já codificada: URI.create evita que o RestClient codifique de novo
+            ResponseEntity<String> response = google.executeIdempotent(() -> google.restClient().get()
                     .uri(URI.create(query))
-                    .GET()
-                    .build();
-
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                    .retrieve()
+                    .toEntity(String.class));
 
-            System.out.println("Google Search Response Status: " + response.statusCode());
+            log.debug("Busca no Google respondeu {}", response.getStatusCode().value());
 
             ObjectMapper mapper = new ObjectMapper();
-            JsonNode root = mapper.readTree(response.body());
+            JsonNode root = mapper.readTree(response.getBody());
 
             JsonNode items = root.get("items");
             if (items != null && items.isArray()) {
@@ -79,7 +85,7 @@ public class CaptationService {
                 }
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.error("Falha na busca de imóveis no Google para '{}'", termo, e);
         }
         return links;
     }
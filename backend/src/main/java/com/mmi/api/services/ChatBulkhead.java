@@ -0,0 +1,133 @@
+package com.mmi.api.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Limita quantas conversas podem estar esperando a OpenAI ao mesmo tempo, para que um pico
+// no chat não prenda todas as threads do Tomcat e derrube /api/properties e o tracking.
+// Quem passar do limite (fila cheia, espera esgotada ou visitante com mensagem em andamento)
+// recebe na hora a resposta de fallback.
+@Component
+@Slf4j
+public class ChatBulkhead {
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final int maxWaiting;
+    private final long maxWaitMs;
+    private final int maxPerVisitor;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Map<String, Integer> inFlightByVisitor = new ConcurrentHashMap<>();
+
+    private final Counter admitted;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rejectedVisitor;
+
+    public ChatBulkhead(@Value("${chat.bulkhead.max-concurrent:8}") int maxConcurrent,
+                        @Value("${chat.bulkhead.max-waiting:16}") int maxWaiting,
+                        @Value("${chat.bulkhead.max-wait-ms:2000}") long maxWaitMs,
+                        @Value("${chat.bulkhead.max-per-visitor:1}") int maxPerVisitor,
+                        MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxConcurrent = maxConcurrent;
+        this.maxWaiting = maxWaiting;
+        this.maxWaitMs = maxWaitMs;
+        this.maxPerVisitor = maxPerVisitor;
+
+        Gauge.builder("mmi.chat.bulkhead.active", permits, p -> this.maxConcurrent - p.availablePermits())
+                .description("Chamadas do chat em andamento")
+                .register(meterRegistry);
+        Gauge.builder("mmi.chat.bulkhead.waiting", waiting, AtomicInteger::get)
+                .description("Chamadas do chat aguardando vaga")
+                .register(meterRegistry);
+        Gauge.builder("mmi.chat.bulkhead.visitors", inFlightByVisitor, Map::size)
+                .description("Visitantes com mensagem em andamento")
+                .register(meterRegistry);
+
+        this.admitted = Counter.builder("mmi.chat.bulkhead.admitted").register(meterRegistry);
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, "queue_full");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, "timeout");
+        this.rejectedVisitor = rejectedCounter(meterRegistry, "visitor_limit");
+    }
+
+    public <T> T execute(String visitorId, Supplier<T> call, Supplier<T> fallback) {
+        boolean perVisitor = visitorId != null && !visitorId.isBlank();
+        if (perVisitor && !tryEnterVisitor(visitorId)) {
+            rejectedVisitor.increment();
+            log.debug("Chat recusado: visitante {} já tem mensagem em andamento", visitorId);
+            return fallback.get();
+        }
+
+        try {
+            if (!acquire()) {
+                return fallback.get();
+            }
+            try {
+                admitted.increment();
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        } finally {
+            if (perVisitor) leaveVisitor(visitorId);
+        }
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) return true;
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            rejectedQueueFull.increment();
+            log.warn("Chat recusado: fila de espera cheia ({} aguardando)", maxWaiting);
+            return false;
+        }
+
+        try {
+            if (permits.tryAcquire(maxWaitMs, TimeUnit.MILLISECONDS)) return true;
+            rejectedTimeout.increment();
+            log.warn("Chat recusado: sem vaga após {} ms", maxWaitMs);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejectedTimeout.increment();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    private boolean tryEnterVisitor(String visitorId) {
+        boolean[] entered = {false};
+        inFlightByVisitor.compute(visitorId, (k, current) -> {
+            int count = current == null ? 0 : current;
+            if (count >= maxPerVisitor) return current;
+            entered[0] = true;
+            return count + 1;
+        });
+        return entered[0];
+    }
+
+    private void leaveVisitor(String visitorId) {
+        inFlightByVisitor.computeIfPresent(visitorId, (k, count) -> count <= 1 ? null : count - 1);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("mmi.chat.bulkhead.rejected")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,179 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Property;
+import com.mmi.models.dto.ChatRequestDTO;
+import com.mmi.models.dto.ChatResponseDTO;
+import com.mmi.models.dto.LeadDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.text.NumberFormat;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+// Responde localmente, em milissegundos, o que não precisa do LLM: perguntas estruturadas sobre
+// o catálogo e mensagens em que o visitante só passa telefone/email logo ao abrir a conversa. O resto
+// volta vazio e o AiService segue para a OpenAI.
+@Service
+@Slf4j
+public class ChatFastPath {
+
+    private final ChatIntentParser intentParser;
+    private final PropertyCatalogCache catalogCache;
+    private final LeadCaptureService leadCaptureService;
+    private final ChatMetrics chatMetrics;
+
+    private final Counter catalogAnswers;
+    private final Counter contactAnswers;
+    private final Counter llmFallthrough;
+
+    @Value("${chat.fast-path.enabled:true}")
+    private boolean enabled;
+
+    @Value("${chat.fast-path.max-results:5}")
+    private int maxResults;
+
+    public ChatFastPath(ChatIntentParser intentParser,
+                        PropertyCatalogCache catalogCache,
+                        LeadCaptureService leadCaptureService,
+                        ChatMetrics chatMetrics,
+                        MeterRegistry meterRegistry) {
+        this.intentParser = intentParser;
+        this.catalogCache = catalogCache;
+        this.leadCaptureService = leadCaptureService;
+        this.chatMetrics = chatMetrics;
+        this.catalogAnswers = Counter.builder("mmi.chat.requests").tag("path", "catalog").register(meterRegistry);
+        this.contactAnswers = Counter.builder("mmi.chat.requests").tag("path", "contact").register(meterRegistry);
+        this.llmFallthrough = Counter.builder("mmi.chat.requests").tag("path", "llm").register(meterRegistry);
+    }
+
+    public Optional<ChatResponseDTO> tryAnswer(ChatRequestDTO request) {
+        if (!enabled) {
+            llmFallthrough.increment();
+            return Optional.empty();
+        }
+        String message = request.getMessage();
+
+        try {
+            // Com histórico, o contato costuma responder a um pedido do próprio LLM: só ele sabe o interesse
+            // e o imóvel da conversa, para a resposta e para o lead
+            Optional<ChatIntentParser.ContactDisclosure> contact = hasHistory(request)
+                    ? Optional.empty() : intentParser.parseContact(message);
+            if (contact.isPresent()) {
+                contactAnswers.increment();
+                return Optional.of(answerContact(contact.get(), request.getVisitorId()));
+            }
+
+            List<Property> properties = catalogCache.getProperties();
+            List<String> locations = properties.stream()
+                    .map(Property::getLocation)
+                    .filter(Objects::nonNull)
+                    .distinct()
+                    .toList();
+
+            Optional<ChatIntentParser.CatalogQuery> query = intentParser.parseCatalogQuery(message, locations);
+            if (query.isPresent()) {
+                catalogAnswers.increment();
+                return Optional.of(answerCatalog(query.get(), properties));
+            }
+        } catch (Exception e) {
+            // Qualquer problema aqui não pode derrubar o chat: cai para o LLM
+            log.warn("Falha no fast-path do chat, seguindo para a OpenAI", e);
+        }
+        llmFallthrough.increment();
+        return Optional.empty();
+    }
+
+    private ChatResponseDTO answerContact(ChatIntentParser.ContactDisclosure contact, String visitorId) {
+        LeadDTO lead = new LeadDTO();
+        lead.setNome(contact.nome());
+        lead.setTelefone(contact.telefone());
+        lead.setEmail(contact.email());
+        lead.setOrigem("IA Chat");
+        lead.setStatus("Novo");
+        lead.setVisitorId(visitorId);
+        boolean captured = leadCaptureService.submit(lead);
+        if (captured) chatMetrics.recordLead();
+
+        String greeting = contact.nome() != null ? "Obrigado, " + contact.nome() + "!" : "Obrigado!";
+        String text = greeting + " Anotei seu contato e um corretor da MMI vai falar com você em breve. "
+                + "Enquanto isso, me conta: você procura imóvel para comprar ou alugar, e em qual região?";
+        return new ChatResponseDTO(text, captured);
+    }
+
+    private static boolean hasHistory(ChatRequestDTO request) {
+        return request.getHistory() != null && !request.getHistory().isEmpty();
+    }
+
+    private ChatResponseDTO answerCatalog(ChatIntentParser.CatalogQuery query, List<Property> properties) {
+        List<Property> matches = properties.stream()
+                .filter(p -> matches(query, p))
+                .sorted(Comparator.comparing(Property::getPrice, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+
+        if (matches.isEmpty()) {
+            return new ChatResponseDTO("No momento não tenho " + describe(query)
+                    + " no nosso catálogo. Se quiser, me passe seu telefone ou email que eu aviso assim que chegar uma opção assim!", false);
+        }
+
+        StringBuilder text = new StringBuilder();
+        text.append(matches.size() == 1 ? "Encontrei 1 opção" : "Encontrei " + matches.size() + " opções")
+                .append(" de ").append(describe(query)).append(":\n");
+        matches.stream().limit(maxResults).forEach(p -> text.append("- ").append(formatProperty(p)).append('\n'));
+        if (matches.size() > maxResults) {
+            text.append("E mais ").append(matches.size() - maxResults).append(" no site.\n");
+        }
+        text.append("Quer mais detalhes de alguma delas? Se preferir, deixe seu telefone que um corretor te chama.");
+        return new ChatResponseDTO(text.toString(), false);
+    }
+
+    private boolean matches(ChatIntentParser.CatalogQuery query, Property p) {
+        if (query.type() != null && query.type() != p.getType()) return false;
+        if (query.transactionType() != null && p.getTransactionType() != null
+                && p.getTransactionType() != query.transactionType()
+                && p.getTransactionType() != Property.TransactionType.VENDA_E_LOCACAO) return false;
+        if (query.bedrooms() != null) {
+            if (query.bedroomsAtLeast() ? p.getBedrooms() < query.bedrooms() : p.getBedrooms() != query.bedrooms()) return false;
+        }
+        if (query.maxPrice() != null && (p.getPrice() == null || p.getPrice() > query.maxPrice())) return false;
+        if (query.minPrice() != null && (p.getPrice() == null || p.getPrice() < query.minPrice())) return false;
+        if (query.location() != null && !query.location().equals(p.getLocation())) return false;
+        return true;
+    }
+
+    private String describe(ChatIntentParser.CatalogQuery query) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(query.type() != null ? query.type().name().toLowerCase(Locale.ROOT) : "imóvel");
+        if (query.transactionType() == Property.TransactionType.VENDA) sb.append(" à venda");
+        if (query.transactionType() == Property.TransactionType.LOCACAO) sb.append(" para alugar");
+        if (query.location() != null) sb.append(" em ").append(query.location());
+        if (query.bedrooms() != null) {
+            sb.append(query.bedroomsAtLeast() ? " com pelo menos " : " com ").append(query.bedrooms())
+                    .append(query.bedrooms() == 1 ? " quarto" : " quartos");
+        }
+        if (query.minPrice() != null) sb.append(" a partir de ").append(formatPrice(query.minPrice()));
+        if (query.maxPrice() != null) sb.append(" até ").append(formatPrice(query.maxPrice()));
+        return sb.toString();
+    }
+
+    private String formatProperty(Property p) {
+        StringBuilder sb = new StringBuilder("[ID:").append(p.getId()).append("] ");
+        sb.append(p.getTitle() != null ? p.getTitle() : p.getType());
+        if (p.getLocation() != null) sb.append(" - ").append(p.getLocation());
+        if (p.getPrice() != null) sb.append(", ").append(formatPrice(p.getPrice()));
+        if (p.getBedrooms() > 0) sb.append(", ").append(p.getBedrooms()).append(p.getBedrooms() == 1 ? " quarto" : " quartos");
+        return sb.toString();
+    }
+
+    private static String formatPrice(double value) {
+        NumberFormat format = NumberFormat.getCurrencyInstance(Locale.of("pt", "BR"));
+        format.setMaximumFractionDigits(0);
+        return format.format(value);
+    }
+}
@@ -0,0 +1,275 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Property;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Parser por regras (português) para as perguntas simples do chat que dá para responder
+// direto do catálogo, sem passar pela OpenAI. Na dúvida ele não reconhece nada e a
+// mensagem segue para o LLM.
+@Component
+public class ChatIntentParser {
+
+    private static final int MAX_QUERY_WORDS = 25;
+    private static final int MAX_CONTACT_EXTRA_WORDS = 8;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern NON_LETTERS = Pattern.compile("[^\\p{L}]+");
+    private static final Pattern TRAILING_SEPARATORS = Pattern.compile("[.,]+$");
+    private static final Pattern THOUSANDS_DOTS = Pattern.compile("\\d{1,3}(\\.\\d{3})+");
+
+    private static final Pattern EMAIL = Pattern.compile("[\\w.+-]+@[\\w-]+(?:\\.[\\w-]+)+");
+    // Celular/fixo brasileiro, com ou sem +55, DDD e separadores
+    private static final Pattern PHONE = Pattern.compile("(?:\\+?55\\s?)?\\(?\\d{2}\\)?[\\s.-]?9?\\d{4}[\\s.-]?\\d{4}");
+    private static final Pattern NAME = Pattern.compile(
+            "(?:meu nome e|me chamo|aqui e o|aqui e a)\\s+([a-z]+(?:\\s+[a-z]+)?)");
+
+    private static final Pattern QUESTION_CUE = Pattern.compile(
+            "\\b(quais|qual|tem|tens|teria|existe|existem|ha|procuro|procurando|busco|buscando|quero|queria|gostaria|"
+                    + "mostre|mostra|liste|lista|opcoes|disponiveis|disponivel)\\b");
+
+    // Assuntos que pedem conversa de verdade: deixa para o LLM
+    private static final Pattern NEEDS_LLM = Pattern.compile(
+            "\\b(como|por que|porque|financia\\w*|documenta\\w*|visita\\w*|agenda\\w*|fgts|condominio|iptu|"
+                    + "contrato|proposta|negocia\\w*|desconto|perto|proximo|melhor|diferenca|compar\\w*|"
+                    + "vender|anunciar|avalia\\w*|minha|meu)\\b");
+
+    // Âncoras \b para "algum quarto" não virar "um quarto" e "bate 500" não virar "ate 500"
+    private static final Pattern BEDROOMS = Pattern.compile(
+            "(?:\\b(pelo menos|no minimo|minimo de|mais de|acima de)\\s*)?\\b(\\d+|um|uma|dois|duas|tres|quatro|cinco|seis)"
+                    + "\\s*(ou mais\\s*)?(quartos?|dormitorios?|dorms?|suites?)\\b(\\s*ou mais)?");
+
+    private static final Pattern MAX_PRICE = Pattern.compile(
+            "\\b(?:ate|abaixo de|menos de|no maximo|maximo de|nao passe de)\\s*(?:r\\$\\s*)?([\\d.,]+)\\s*(mil|k|milhao|milhoes|mi)?\\b");
+    private static final Pattern MIN_PRICE = Pattern.compile(
+            "\\b(?:acima de|a partir de|mais de|minimo de|no minimo|partindo de)\\s*(?:r\\$\\s*)?([\\d.,]+)\\s*(mil|k|milhao|milhoes|mi)?\\b");
+
+    private static final Pattern SALE = Pattern.compile("\\b(venda|vende|vendendo|comprar|compra)\\b");
+    private static final Pattern RENT = Pattern.compile("\\b(aluguel|alugar|aluga|alugando|locacao|locar)\\b");
+
+    private static final Map<Pattern, Property.PropertyType> TYPES = Map.of(
+            Pattern.compile("\\b(casas?|sobrados?)\\b"), Property.PropertyType.Casa,
+            Pattern.compile("\\b(apartamentos?|aptos?|ap|aps|kitnets?|studios?)\\b"), Property.PropertyType.Apartamento,
+            Pattern.compile("\\bcoberturas?\\b"), Property.PropertyType.Cobertura,
+            Pattern.compile("\\b(terrenos?|lotes?)\\b"), Property.PropertyType.Terreno,
+            Pattern.compile("\\b(comercia(l|is)|lojas?|salas?|galpo(es|ao))\\b"), Property.PropertyType.Comercial,
+            Pattern.compile("\\b(rural|rurais|chacaras?|sitios?|fazendas?)\\b"), Property.PropertyType.Rural
+    );
+
+    private static final Map<String, Integer> NUMBER_WORDS = Map.of(
+            "um", 1, "uma", 1, "dois", 2, "duas", 2, "tres", 3, "quatro", 4, "cinco", 5, "seis", 6);
+
+    public record CatalogQuery(Property.PropertyType type,
+                               Property.TransactionType transactionType,
+                               Integer bedrooms,
+                               boolean bedroomsAtLeast,
+                               Double minPrice,
+                               Double maxPrice,
+                               String location) {
+    }
+
+    public record ContactDisclosure(String nome, String telefone, String email) {
+    }
+
+    // Reconhece uma pergunta estruturada sobre o catálogo ("quais casas à venda com 3 quartos até 500 mil?")
+    public Optional<CatalogQuery> parseCatalogQuery(String message, Collection<String> knownLocations) {
+        if (message == null || message.isBlank()) return Optional.empty();
+
+        String text = normalize(message);
+        if (wordCount(text) > MAX_QUERY_WORDS) return Optional.empty();
+        if (NEEDS_LLM.matcher(text).find()) return Optional.empty();
+        if (!QUESTION_CUE.matcher(text).find() && !message.trim().endsWith("?")) return Optional.empty();
+        // Mensagem com contato vai pelo outro caminho
+        if (EMAIL.matcher(message).find() || PHONE.matcher(message).find()) return Optional.empty();
+
+        Property.PropertyType type = null;
+        for (Map.Entry<Pattern, Property.PropertyType> entry : TYPES.entrySet()) {
+            if (entry.getKey().matcher(text).find()) {
+                if (type != null) return Optional.empty(); // dois tipos na mesma pergunta: deixa para o LLM
+                type = entry.getValue();
+            }
+        }
+
+        boolean sale = SALE.matcher(text).find();
+        boolean rent = RENT.matcher(text).find();
+        Property.TransactionType transactionType = null;
+        if (sale && !rent) transactionType = Property.TransactionType.VENDA;
+        if (rent && !sale) transactionType = Property.TransactionType.LOCACAO;
+
+        if (type == null && transactionType == null) return Optional.empty();
+
+        Integer bedrooms = null;
+        boolean bedroomsAtLeast = false;
+        Matcher bedroomMatcher = BEDROOMS.matcher(text);
+        if (bedroomMatcher.find()) {
+            bedrooms = parseSmallNumber(bedroomMatcher.group(2));
+            bedroomsAtLeast = bedroomMatcher.group(1) != null || bedroomMatcher.group(3) != null || bedroomMatcher.group(5) != null;
+            if (bedroomMatcher.group(1) != null && bedroomMatcher.group(1).contains("mais de")) {
+                bedrooms = bedrooms + 1;
+            }
+            // Remove o trecho para "mais de 2 quartos" não virar preço mínimo
+            text = text.substring(0, bedroomMatcher.start()) + " " + text.substring(bedroomMatcher.end());
+        }
+
+        Double maxPrice = parsePrice(MAX_PRICE.matcher(text));
+        Double minPrice = parsePrice(MIN_PRICE.matcher(text));
+
+        String location = null;
+        if (knownLocations != null) {
+            for (String candidate : knownLocations) {
+                if (matchesLocation(text, candidate)) {
+                    location = candidate;
+                    break;
+                }
+            }
+        }
+
+        return Optional.of(new CatalogQuery(type, transactionType, bedrooms, bedroomsAtLeast, minPrice, maxPrice, location));
+    }
+
+    // Reconhece mensagens que são basicamente o visitante passando telefone/email ("meu zap é 11 99999-0000")
+    public Optional<ContactDisclosure> parseContact(String message) {
+        if (message == null || message.isBlank()) return Optional.empty();
+
+        Matcher emailMatcher = EMAIL.matcher(message);
+        String email = emailMatcher.find() ? emailMatcher.group() : null;
+        String remaining = email != null ? message.replace(email, " ") : message;
+
+        Matcher phoneMatcher = PHONE.matcher(remaining);
+        String telefone = phoneMatcher.find() ? phoneMatcher.group().trim() : null;
+        if (telefone != null) remaining = remaining.replace(telefone, " ");
+
+        if (email == null && telefone == null) return Optional.empty();
+
+        String normalized = normalize(remaining);
+        String nome = null;
+        Matcher nameMatcher = NAME.matcher(normalized);
+        if (nameMatcher.find()) {
+            nome = capitalize(extractOriginal(remaining, nameMatcher.group(1)));
+            normalized = normalized.replace(nameMatcher.group(0), " ");
+        }
+
+        // Se sobrou muito texto, o visitante está perguntando algo junto: deixa para o LLM
+        if (wordCount(normalized) > MAX_CONTACT_EXTRA_WORDS) return Optional.empty();
+
+        return Optional.of(new ContactDisclosure(nome, telefone, email));
+    }
+
+    public boolean matchesLocation(String normalizedText, String location) {
+        if (location == null || location.isBlank()) return false;
+        String normalizedLocation = normalize(location);
+        if (normalizedText.contains(normalizedLocation)) return true;
+        // "Centro, Campinas" -> aceita só "centro" também
+        int comma = normalizedLocation.indexOf(',');
+        if (comma > 0) {
+            String firstPart = normalizedLocation.substring(0, comma).trim();
+            return firstPart.length() >= 4 && containsWord(normalizedText, firstPart);
+        }
+        return false;
+    }
+
+    private static boolean containsWord(String text, String word) {
+        int index = text.indexOf(word);
+        while (index >= 0) {
+            int end = index + word.length();
+            boolean startsWord = index == 0 || !Character.isLetterOrDigit(text.charAt(index - 1));
+            boolean endsWord = end == text.length() || !Character.isLetterOrDigit(text.charAt(end));
+            if (startsWord && endsWord) return true;
+            index = text.indexOf(word, index + 1);
+        }
+        return false;
+    }
+
+    public static String normalize(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = DIACRITICS.matcher(decomposed).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    private static Double parsePrice(Matcher matcher) {
+        if (!matcher.find()) return null;
+        Double value = parseNumber(matcher.group(1));
+        if (value == null) return null;
+        String unit = matcher.group(2);
+        if (unit != null) {
+            value *= switch (unit) {
+                case "mil", "k" -> 1_000d;
+                default -> 1_000_000d;
+            };
+        }
+        return value;
+    }
+
+    // Aceita "500", "500.000", "1.200.000,00", "1,5" e "2.5"
+    private static Double parseNumber(String raw) {
+        String value = TRAILING_SEPARATORS.matcher(raw).replaceAll("");
+        if (value.isEmpty()) return null;
+        boolean hasDot = value.indexOf('.') >= 0;
+        boolean hasComma = value.indexOf(',') >= 0;
+        if (hasDot && hasComma) {
+            value = value.replace(".", "").replace(',', '.');
+        } else if (hasComma) {
+            value = value.replace(',', '.');
+        } else if (hasDot && THOUSANDS_DOTS.matcher(value).matches()) {
+            value = value.replace(".", "");
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Integer parseSmallNumber(String raw) {
+        Integer word = NUMBER_WORDS.get(raw);
+        return word != null ? word : Integer.valueOf(raw);
+    }
+
+    private static String extractOriginal(String original, String normalizedFragment) {
+        // Recupera o nome com acentos a partir do texto original
+        String[] originalWords = WHITESPACE.split(original.trim());
+        String[] targetWords = normalizedFragment.split(" ");
+        for (int i = 0; i + targetWords.length <= originalWords.length; i++) {
+            boolean match = true;
+            for (int j = 0; j < targetWords.length; j++) {
+                if (!lettersOnly(normalize(originalWords[i + j])).equals(targetWords[j])) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                String[] nameWords = Arrays.copyOfRange(originalWords, i, i + targetWords.length);
+                for (int j = 0; j < nameWords.length; j++) nameWords[j] = lettersOnly(nameWords[j]);
+                return String.join(" ", nameWords);
+            }
+        }
+        return normalizedFragment;
+    }
+
+    private static String lettersOnly(String word) {
+        return NON_LETTERS.matcher(word).replaceAll("");
+    }
+
+    private static String capitalize(String name) {
+        StringBuilder sb = new StringBuilder();
+        for (String part : name.toLowerCase(Locale.ROOT).split(" ")) {
+            if (part.isEmpty()) continue;
+            if (!sb.isEmpty()) sb.append(' ');
+            sb.append(Character.toUpperCase(part.charAt(0))).append(part.substring(1));
+        }
+        return sb.toString();
+    }
+
+    private static int wordCount(String text) {
+        return text.isBlank() ? 0 : WHITESPACE.split(text.trim()).length;
+    }
+}
@@ -0,0 +1,158 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.http.TargetUnavailableException;
+import com.mmi.models.dto.ChatUsageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+// Instrumentação do chat: tempo de cada etapa, tokens consumidos na OpenAI, falhas e custo
+// estimado por dia (a partir do preço por token configurado).
+@Component
+public class ChatMetrics {
+
+    private static final ZoneId ZONE = ZoneId.of("America/Sao_Paulo");
+    private static final int DAYS_KEPT = 31;
+
+    private final MeterRegistry meterRegistry;
+    private final double promptPricePerMillion;
+    private final double completionPricePerMillion;
+
+    private final DistributionSummary promptTokens;
+    private final DistributionSummary completionTokens;
+    private final Counter costUsd;
+    private final Counter leads;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+    private final Map<LocalDate, DailyUsage> usageByDay = new ConcurrentHashMap<>();
+
+    public ChatMetrics(MeterRegistry meterRegistry,
+                       @Value("${openai.price.prompt-per-million:0.15}") double promptPricePerMillion,
+                       @Value("${openai.price.completion-per-million:0.60}") double completionPricePerMillion) {
+        this.meterRegistry = meterRegistry;
+        this.promptPricePerMillion = promptPricePerMillion;
+        this.completionPricePerMillion = completionPricePerMillion;
+
+        this.promptTokens = tokenSummary("prompt");
+        this.completionTokens = tokenSummary("completion");
+        this.costUsd = Counter.builder("mmi.chat.cost")
+                .baseUnit("usd")
+                .description("Custo estimado das chamadas à OpenAI")
+                .register(meterRegistry);
+        this.leads = Counter.builder("mmi.chat.leads")
+                .description("Leads capturados pelo chat")
+                .register(meterRegistry);
+
+        Gauge.builder("mmi.chat.cost.today", this, m -> m.today().estimatedCost())
+                .baseUnit("usd")
+                .register(meterRegistry);
+    }
+
+    // Mede uma etapa do chat: retrieval, prompt, upstream ou lead
+    public <T> T time(String stage, Supplier<T> step) {
+        return stageTimers.computeIfAbsent(stage, s -> Timer.builder("mmi.chat.stage")
+                .tag("stage", s)
+                .publishPercentileHistogram()
+                .register(meterRegistry)).record(step);
+    }
+
+    public void recordUsage(long prompt, long completion) {
+        promptTokens.record(prompt);
+        completionTokens.record(completion);
+
+        DailyUsage usage = today();
+        usage.calls.increment();
+        usage.promptTokens.add(prompt);
+        usage.completionTokens.add(completion);
+        costUsd.increment(cost(prompt, completion));
+    }
+
+    public void recordFailure(Exception e) {
+        today().failures.increment();
+        Counter.builder("mmi.chat.upstream.failures")
+                .tag("reason", failureReason(e))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordLead() {
+        leads.increment();
+        today().leads.increment();
+    }
+
+    // Uso dos últimos dias, do mais recente para o mais antigo
+    public List<ChatUsageDTO> usage(int days) {
+        LocalDate day = LocalDate.now(ZONE);
+        List<ChatUsageDTO> result = new ArrayList<>();
+        for (int i = 0; i < Math.min(days, DAYS_KEPT); i++, day = day.minusDays(1)) {
+            DailyUsage usage = usageByDay.get(day);
+            if (usage != null) result.add(usage.toDto(day));
+        }
+        return result;
+    }
+
+    private DailyUsage today() {
+        LocalDate day = LocalDate.now(ZONE);
+        DailyUsage usage = usageByDay.get(day);
+        if (usage == null) {
+            usage = usageByDay.computeIfAbsent(day, d -> new DailyUsage());
+            usageByDay.keySet().removeIf(d -> d.isBefore(day.minusDays(DAYS_KEPT)));
+        }
+        return usage;
+    }
+
+    private double cost(long prompt, long completion) {
+        return (prompt * promptPricePerMillion + completion * completionPricePerMillion) / 1_000_000d;
+    }
+
+    private DistributionSummary tokenSummary(String type) {
+        return DistributionSummary.builder("mmi.chat.tokens")
+                .tag("type", type)
+                .baseUnit("tokens")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private static String failureReason(Exception e) {
+        if (e instanceof RestClientResponseException http) {
+            return http.getStatusCode().is4xxClientError() ? "http_4xx" : "http_5xx";
+        }
+        if (e instanceof ResourceAccessException) return "io";
+        if (e instanceof TargetUnavailableException) return "unavailable";
+        return "other";
+    }
+
+    private class DailyUsage {
+        final LongAdder calls = new LongAdder();
+        final LongAdder failures = new LongAdder();
+        final LongAdder promptTokens = new LongAdder();
+        final LongAdder completionTokens = new LongAdder();
+        final LongAdder leads = new LongAdder();
+
+        double estimatedCost() {
+            return cost(promptTokens.sum(), completionTokens.sum());
+        }
+
+        ChatUsageDTO toDto(LocalDate day) {
+            long leadCount = leads.sum();
+            double totalCost = estimatedCost();
+            return new ChatUsageDTO(day, calls.sum(), failures.sum(), promptTokens.sum(), completionTokens.sum(),
+                    totalCost, leadCount, leadCount > 0 ? totalCost / leadCount : null);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Clause;
+import com.mmi.models.dto.ClauseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cláusulas da biblioteca (tabela clauses) já diagramadas: palavras, trechos em negrito, larguras
+// e quebras de linha. Elas mudam pouco e se repetem em quase todo contrato, então cada versão é
+// medida uma vez só. O ContractService invalida a entrada ao editar ou remover a cláusula; como a
+// versão faz parte da chave, uma invalidação atrasada nunca serve o texto antigo.
+@Component
+public class ClauseLayoutCache {
+
+    private final ContractLayout layout;
+    private final Map<Long, Fragment> fragments = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    public ClauseLayoutCache(ContractLayout layout, MeterRegistry meterRegistry) {
+        this.layout = layout;
+        this.hits = Counter.builder("mmi.contract.clause.layout.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mmi.contract.clause.layout.cache").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("mmi.contract.clause.layout.cache.entries", fragments, Map::size)
+                .register(meterRegistry);
+    }
+
+    public ContractLayout.LaidOutClause get(LibraryClause clause) throws IOException {
+        Fragment cached = fragments.get(clause.getId());
+        if (cached != null && cached.version() == clause.getVersion()) {
+            hits.increment();
+            return cached.clause();
+        }
+        misses.increment();
+        ContractLayout.LaidOutClause laidOut = new ContractLayout.LaidOutClause(clause.getTitle(),
+                List.copyOf(layout.layoutContent(clause.getContent(), ContractService.TEXT_WIDTH)));
+        // Uma renderização ainda com a versão anterior não sobrescreve a mais nova
+        fragments.merge(clause.getId(), new Fragment(clause.getVersion(), laidOut),
+                (current, fresh) -> current.version() > fresh.version() ? current : fresh);
+        return laidOut;
+    }
+
+    public void invalidate(Long clauseId) {
+        if (clauseId != null) fragments.remove(clauseId);
+    }
+
+    private record Fragment(long version, ContractLayout.LaidOutClause clause) {
+    }
+
+    // Cláusula lida da biblioteca para um contrato. Só o servidor cria (não vem do JSON do pedido),
+    // então id e versão sempre correspondem ao texto.
+    public static final class LibraryClause extends ClauseDTO {
+
+        private final Long id;
+        private final long version;
+
+        public LibraryClause(Clause clause) {
+            super(clause.getTitle(), clause.getContent());
+            this.id = clause.getId();
+            this.version = clause.getVersion() != null ? clause.getVersion() : 0;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -2,36 +2,63 @@ package com.mmi.api.services;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmi.infra.http.HttpTarget;
+import com.mmi.infra.http.OutboundHttp;
 import com.mmi.models.dto.SignatureDTO;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestClient;
 import org.springframework.http.MediaType;
-
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
 public class ClicksignService {
 
+    private final HttpTarget clicksign;
+    private final HttpTarget clicksignFiles;
     private final RestClient restClient;
+    // Downloads por URL absoluta (links temporários do Clicksign), sem os cabeçalhos JSON da API
+    private final RestClient downloadClient;
     private final String accessToken;
     private final ObjectMapper objectMapper;
 
+    private static final String DATA_URI_PREFIX = "data:application/pdf;base64,";
+
     // Construtor injetando os valores do application.properties
     public ClicksignService(@Value("${clicksign.base.url}") String baseUrl,
                             @Value("${clicksign.access.token}") String accessToken,
-                            ObjectMapper objectMapper) {
+                            ObjectMapper objectMapper,
+                            OutboundHttp outboundHttp) {
         this.accessToken = accessToken;
         this.objectMapper = objectMapper;
+        this.clicksign = outboundHttp.target("clicksign");
+        this.clicksignFiles = outboundHttp.target("clicksign-files");
 
-        // Configura o cliente HTTP com a URL base (Sandbox ou Prod)
-        this.restClient = RestClient.builder()
+        // Configura o cliente HTTP com a URL base (Sandbox ou Prod), sobre o pool do destino "clicksign"
+        this.restClient = clicksign.restClient().mutate()
                 .baseUrl(baseUrl)
                 .defaultHeader("Accept", "application/json")
                 .defaultHeader("Content-Type", "application/json")
                 .build();
+        this.downloadClient = clicksignFiles.restClient();
+    }
+
+    // Leitor do corpo de um download; recebe o stream da conexão, que é fechado ao retornar
+    @FunctionalInterface
+    public interface BodyReader<T> {
+        T read(InputStream body) throws IOException;
     }
 
     // Método auxiliar para adicionar o token na URL (Padrão da Clicksign)
@@ -40,28 +67,41 @@ public class ClicksignService {
     }
 
     // 1. Upload do PDF
-    public String uploadDocument(byte[] pdfBytes, String fileName) {
+    // A API exige o arquivo em Base64 dentro do JSON. O corpo é escrito em streaming: o PDF é lido do
+    // disco e codificado direto na conexão, então a memória usada não depende do tamanho do contrato.
+    public String uploadDocument(Path pdf, String fileName) {
         try {
-            // Converte PDF para Base64 (exigência da API)
-            String base64Content = "data:application/pdf;base64," + Base64.getEncoder().encodeToString(pdfBytes);
+            long pdfSize = Files.size(pdf);
 
-            Map<String, Object> documentBody = new HashMap<>();
+            // Tudo antes do conteúdo (campos pequenos) é serializado pelo Jackson; o valor de
+            // content_base64 fica aberto no fim e é completado pelo stream
+            Map<String, Object> documentBody = new LinkedHashMap<>();
             documentBody.put("path", "/contratos/" + fileName);
-            documentBody.put("content_base64", base64Content);
             documentBody.put("deadline_at", java.time.LocalDate.now().plusDays(30).toString()); // Prazo de 30 dias
             documentBody.put("auto_close", true); // Fecha documento ao finalizar assinaturas
             documentBody.put("locale", "pt-BR");
-
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("document", documentBody);
-
-            // POST /documents?access_token=...
-            Map response = restClient.post()
+            String fields = objectMapper.writeValueAsString(documentBody);
+            byte[] head = ("{\"document\":" + fields.substring(0, fields.length() - 1)
+                    + ",\"content_base64\":\"" + DATA_URI_PREFIX).getBytes(StandardCharsets.UTF_8);
+            byte[] tail = "\"}}".getBytes(StandardCharsets.UTF_8);
+            // Tamanho exato (Base64 com padding: 4 caracteres a cada 3 bytes) evita o envio chunked
+            long contentLength = head.length + 4 * ((pdfSize + 2) / 3) + tail.length;
+
+            // POST /documents?access_token=... (uma nova tentativa relê o PDF do disco)
+            Map response = clicksign.execute(() -> restClient.post()
                     .uri("/documents" + getAuthParam())
                     .contentType(MediaType.APPLICATION_JSON)
-                    .body(payload)
+                    .contentLength(contentLength)
+                    .body(out -> {
+                        out.write(head);
+                        try (InputStream in = Files.newInputStream(pdf);
+                             OutputStream base64 = Base64.getEncoder().wrap(StreamUtils.nonClosing(out))) {
+                            in.transferTo(base64);
+                        }
+                        out.write(tail);
+                    })
                     .retrieve()
-                    .body(Map.class);
+                    .body(Map.class));
 
             Map<String, Object> docData = (Map<String, Object>) response.get("document");
             return (String) docData.get("key");
@@ -85,12 +125,12 @@ public class ClicksignService {
             payload.put("signer", signerBody);
 
             // POST /signers?access_token=...
-            Map response = restClient.post()
+            Map response = clicksign.execute(() -> restClient.post()
                     .uri("/signers" + getAuthParam())
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(payload)
                     .retrieve()
-                    .body(Map.class);
+                    .body(Map.class));
 
             Map<String, Object> signerData = (Map<String, Object>) response.get("signer");
             return (String) signerData.get("key");
@@ -115,18 +155,54 @@ public class ClicksignService {
             payload.put("list", listBody);
 
             // POST /lists?access_token=...
-            restClient.post()
+            clicksign.execute(() -> restClient.post()
                     .uri("/lists" + getAuthParam())
                     .contentType(MediaType.APPLICATION_JSON)
                     .body(payload)
                     .retrieve()
-                    .toBodilessEntity(); // Retorna void se der sucesso (201 Created)
+                    .toBodilessEntity()); // Retorna void se der sucesso (201 Created)
 
         } catch (Exception e) {
             throw new RuntimeException("Erro ao vincular signatário ao documento: " + e.getMessage(), e);
         }
     }
 
+    // 4. Link temporário da via assinada (GET /documents/{key}); null enquanto o Clicksign ainda a gera
+    public String getSignedFileUrl(String documentKey) {
+        try {
+            Map response = clicksign.executeIdempotent(() -> restClient.get()
+                    .uri("/documents/" + documentKey + getAuthParam())
+                    .retrieve()
+                    .body(Map.class));
+
+            Map<String, Object> docData = (Map<String, Object>) response.get("document");
+            Map<String, Object> downloads = docData != null ? (Map<String, Object>) docData.get("downloads") : null;
+            return downloads != null ? (String) downloads.get("signed_file_url") : null;
+
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao consultar documento na Clicksign: " + e.getMessage(), e);
+        }
+    }
+
+    // 5. Download em streaming: o corpo vai direto para o reader, sem passar inteiro pela memória.
+    // Uma nova tentativa começa do zero, com outro stream.
+    public <T> T download(String url, BodyReader<T> reader) {
+        try {
+            return clicksignFiles.executeIdempotent(() -> downloadClient.get()
+                    .uri(URI.create(url))
+                    .exchange((request, response) -> {
+                        if (!response.getStatusCode().is2xxSuccessful()) {
+                            throw new IOException("HTTP " + response.getStatusCode().value());
+                        }
+                        try (InputStream body = response.getBody()) {
+                            return reader.read(body);
+                        }
+                    }));
+        } catch (Exception e) {
+            throw new RuntimeException("Erro ao baixar arquivo da Clicksign: " + e.getMessage(), e);
+        }
+    }
+
     // Helper simples para converter papéis do seu sistema para a Clicksign
     private String convertRoleToClicksign(String role) {
         if (role == null) return "party";
@@ -0,0 +1,94 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.ClicksignSignerRepository;
+import com.mmi.models.ClicksignSigner;
+import com.mmi.models.dto.SignatureDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Optional;
+
+// Chaves de signatário do Clicksign por pessoa (e-mail + CPF). Quem já assinou outro contrato
+// reaproveita a chave guardada e pula o createSigner; sem e-mail ou CPF não há como identificar a
+// pessoa, então sempre cria.
+@Component
+public class ClicksignSignerRegistry {
+
+    public record SignerKey(String key, boolean reused) {
+    }
+
+    private final ClicksignSignerRepository repository;
+    private final ClicksignService clicksignService;
+    private final Counter reused;
+    private final Counter created;
+
+    public ClicksignSignerRegistry(ClicksignSignerRepository repository,
+                                   ClicksignService clicksignService,
+                                   MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.clicksignService = clicksignService;
+        this.reused = Counter.builder("mmi.clicksign.signers").tag("result", "reused").register(meterRegistry);
+        this.created = Counter.builder("mmi.clicksign.signers").tag("result", "created").register(meterRegistry);
+    }
+
+    // Identidade usada para reaproveitar a chave; null se faltar e-mail ou CPF
+    public static String identity(SignatureDTO dto) {
+        String email = normalizeEmail(dto.getEmail());
+        String cpf = normalizeCpf(dto.getCpf());
+        return email != null && cpf != null ? email + "|" + cpf : null;
+    }
+
+    public SignerKey resolve(SignatureDTO dto) {
+        String email = normalizeEmail(dto.getEmail());
+        String cpf = normalizeCpf(dto.getCpf());
+        if (email == null || cpf == null) {
+            created.increment();
+            return new SignerKey(clicksignService.createSigner(dto), false);
+        }
+
+        Optional<ClicksignSigner> existing = repository.findByEmailAndCpf(email, cpf);
+        if (existing.isPresent()) {
+            reused.increment();
+            return new SignerKey(existing.get().getSignerKey(), true);
+        }
+
+        String key = clicksignService.createSigner(dto);
+        created.increment();
+        ClicksignSigner signer = new ClicksignSigner();
+        signer.setEmail(email);
+        signer.setCpf(cpf);
+        signer.setSignerKey(key);
+        signer.setCreatedAt(Instant.now());
+        try {
+            repository.save(signer);
+            return new SignerKey(key, false);
+        } catch (DataIntegrityViolationException e) {
+            // Outra requisição cadastrou a mesma pessoa ao mesmo tempo: vale a chave que foi gravada
+            return repository.findByEmailAndCpf(email, cpf)
+                    .map(s -> new SignerKey(s.getSignerKey(), false))
+                    .orElse(new SignerKey(key, false));
+        }
+    }
+
+    // Descarta a chave guardada (ex.: signatário removido no Clicksign) para a próxima ser criada de novo
+    public void forget(SignatureDTO dto) {
+        String email = normalizeEmail(dto.getEmail());
+        String cpf = normalizeCpf(dto.getCpf());
+        if (email != null && cpf != null) repository.deleteByEmailAndCpf(email, cpf);
+    }
+
+    private static String normalizeEmail(String email) {
+        if (email == null || email.isBlank()) return null;
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static String normalizeCpf(String cpf) {
+        if (cpf == null) return null;
+        String digits = cpf.replaceAll("\\D", "");
+        return digits.length() == 11 ? digits : null;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mmi.api.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mmi.infra.WebhookEventRepository;
+import com.mmi.models.WebhookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+
+// Entrada dos webhooks do Clicksign: grava o evento na webhook_inbox (um INSERT) e mais nada, para
+// responder em milissegundos mesmo em rajadas. Quem aplica é o ClicksignWebhookProcessor.
+@Component
+public class ClicksignWebhookInbox {
+
+    private final WebhookEventRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Counter received;
+
+    public ClicksignWebhookInbox(WebhookEventRepository repository, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.received = Counter.builder("mmi.clicksign.webhooks.received").register(meterRegistry);
+    }
+
+    // Corpo que não é JSON -> IllegalArgumentException
+    public WebhookEvent receive(String body) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Webhook inválido: " + e.getOriginalMessage());
+        }
+        JsonNode event = root.path("event");
+
+        Instant now = Instant.now();
+        WebhookEvent inbound = new WebhookEvent();
+        inbound.setEventId(eventId(event, body));
+        inbound.setEventName(event.path("name").asText(null));
+        inbound.setDocumentKey(root.path("document").path("key").asText(null));
+        inbound.setOccurredAt(parseInstant(event.path("occurred_at").asText(null)));
+        inbound.setPayload(body);
+        inbound.setReceivedAt(now);
+        inbound.setNextAttemptAt(now);
+        received.increment();
+        return repository.save(inbound);
+    }
+
+    // O payload da API v1 não traz id do evento; os reenvios repetem o corpo, então o hash dele serve
+    private static String eventId(JsonNode event, String body) {
+        String id = event.path("id").asText(null);
+        if (id != null && !id.isBlank() && id.length() <= 64) return id;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(body.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Ex.: 2024-03-01T10:15:30.123-03:00
+    private static Instant parseInstant(String value) {
+        if (value == null || value.isBlank()) return null;
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.ContractRepository;
+import com.mmi.infra.WebhookEventRepository;
+import com.mmi.models.Contract;
+import com.mmi.models.ContractStatus;
+import com.mmi.models.WebhookEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Aplica os webhooks da webhook_inbox fora do caminho do request. A cada ciclo drena os pendentes
+// em lotes: cada lote é uma transação que descarta reenvios (mesmo eventId já processado), busca
+// todos os contratos do lote numa consulta só pelo externalKey e grava os status juntos. Evento de
+// documento ainda desconhecido (o webhook pode chegar antes do sendToClicksign gravar a chave) volta
+// para a fila com espera exponencial, até max-attempts. Se o lote é desfeito por erro, os eventos
+// dele são reprocessados um a um, cada um na sua transação: o que falhar de novo tem a tentativa
+// gravada à parte e não trava os demais.
+@Component
+@Slf4j
+public class ClicksignWebhookProcessor {
+
+    private final WebhookEventRepository inbox;
+    private final ContractRepository contractRepository;
+    private final TransactionTemplate transaction;
+    private final SignedPdfArchiver signedPdfArchiver;
+
+    private final Counter processed;
+    private final Counter duplicates;
+    private final Counter ignored;
+    private final Counter retried;
+    private final Counter failed;
+
+    @Value("${clicksign.webhooks.batch-size:100}")
+    private int batchSize;
+
+    @Value("${clicksign.webhooks.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${clicksign.webhooks.retry-backoff-ms:2000}")
+    private long retryBackoffMs;
+
+    @Value("${clicksign.webhooks.retention-days:30}")
+    private int retentionDays;
+
+    public ClicksignWebhookProcessor(WebhookEventRepository inbox,
+                                     ContractRepository contractRepository,
+                                     PlatformTransactionManager transactionManager,
+                                     SignedPdfArchiver signedPdfArchiver,
+                                     MeterRegistry meterRegistry) {
+        this.inbox = inbox;
+        this.contractRepository = contractRepository;
+        this.signedPdfArchiver = signedPdfArchiver;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.processed = counter(meterRegistry, "processed");
+        this.duplicates = counter(meterRegistry, "duplicate");
+        this.ignored = counter(meterRegistry, "ignored");
+        this.retried = counter(meterRegistry, "retry");
+        this.failed = counter(meterRegistry, "failed");
+    }
+
+    @Scheduled(fixedDelayString = "${clicksign.webhooks.poll-interval-ms:1000}")
+    public void processPending() {
+        Integer count;
+        do {
+            List<Long> claimed = new ArrayList<>();
+            try {
+                count = transaction.execute(status -> processBatch(claimed));
+            } catch (RuntimeException e) {
+                log.warn("Lote de {} webhooks do Clicksign desfeito, processando um a um: {}", claimed.size(), e.getMessage());
+                claimed.forEach(this::processOne);
+                return;
+            }
+        } while (count != null && count == batchSize);
+    }
+
+    // Eventos já resolvidos saem da tabela depois de retention-days
+    @Scheduled(cron = "${clicksign.webhooks.cleanup-cron:0 30 3 * * *}")
+    public void purgeFinished() {
+        Integer removed = transaction.execute(status ->
+                inbox.deleteFinishedBefore(Instant.now().minus(Duration.ofDays(retentionDays))));
+        if (removed != null && removed > 0) log.info("{} webhooks antigos removidos da caixa de entrada", removed);
+    }
+
+    int processBatch(List<Long> claimed) {
+        Instant now = Instant.now();
+        List<WebhookEvent> batch = inbox.lockNextBatch(now, PageRequest.of(0, batchSize));
+        batch.forEach(event -> claimed.add(event.getId()));
+        if (batch.isEmpty()) return 0;
+        applyEvents(batch, now);
+        return batch.size();
+    }
+
+    // Um evento sozinho; se falhar, a tentativa e o erro são gravados numa transação separada
+    private void processOne(Long id) {
+        try {
+            transaction.executeWithoutResult(status ->
+                    inbox.lockPending(id).ifPresent(event -> applyEvents(List.of(event), Instant.now())));
+        } catch (RuntimeException e) {
+            String error = "Falha ao aplicar: " + (e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+            log.warn("Webhook {} falhou sozinho: {}", id, error);
+            try {
+                transaction.executeWithoutResult(status -> inbox.lockPending(id).ifPresent(event -> {
+                    event.setAttempts(event.getAttempts() + 1);
+                    retryLater(event, error.length() > 1000 ? error.substring(0, 1000) : error, Instant.now());
+                }));
+            } catch (RuntimeException again) {
+                log.error("Não foi possível registrar a falha do webhook {}", id, again);
+            }
+        }
+    }
+
+    // Aplica os eventos travados na transação atual
+    private void applyEvents(List<WebhookEvent> batch, Instant now) {
+        Set<String> done = new HashSet<>(inbox.findProcessedEventIds(
+                batch.stream().map(WebhookEvent::getEventId).collect(Collectors.toSet())));
+        Set<String> documentKeys = batch.stream()
+                .map(WebhookEvent::getDocumentKey)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Contract> contracts = documentKeys.isEmpty() ? Map.of()
+                : contractRepository.findAllByExternalKeyIn(documentKeys).stream()
+                        .collect(Collectors.toMap(Contract::getExternalKey, Function.identity(), (a, b) -> a));
+
+        // Eventos e contratos estão gerenciados: tudo é gravado no commit do lote
+        boolean signedPdfPending = false;
+        for (WebhookEvent event : batch) {
+            event.setAttempts(event.getAttempts() + 1);
+            if (done.contains(event.getEventId())) {
+                finish(event, WebhookEvent.Status.DUPLICADO, now);
+                duplicates.increment();
+                continue;
+            }
+            ContractStatus target = statusFor(event.getEventName());
+            if (target == null) {
+                finish(event, WebhookEvent.Status.IGNORADO, now);
+                ignored.increment();
+                continue;
+            }
+            Contract contract = contracts.get(event.getDocumentKey());
+            if (contract == null) {
+                retryLater(event, "Nenhum contrato com externalKey " + event.getDocumentKey(), now);
+                continue;
+            }
+            apply(contract, target, event.getOccurredAt() != null ? event.getOccurredAt() : event.getReceivedAt());
+            if (contract.getStatus() == ContractStatus.ASSINADO && contract.getSignedPdfPath() == null
+                    && contract.getSignedPdfNextAttemptAt() == null) {
+                // A via assinada é baixada pelo SignedPdfArchiver, fora desta transação
+                contract.setSignedPdfNextAttemptAt(now);
+                contract.setSignedPdfAttempts(0);
+                signedPdfPending = true;
+            }
+            finish(event, WebhookEvent.Status.PROCESSADO, now);
+            done.add(event.getEventId());
+            processed.increment();
+        }
+        if (signedPdfPending) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    signedPdfArchiver.wakeUp();
+                }
+            });
+        }
+    }
+
+    // Eventos que mudam a situação do contrato; os demais (sign, add_signer, upload...) só são registrados
+    static ContractStatus statusFor(String eventName) {
+        if (eventName == null) return null;
+        return switch (eventName.toLowerCase(Locale.ROOT)) {
+            case "auto_close", "close", "document_closed" -> ContractStatus.ASSINADO;
+            case "cancel" -> ContractStatus.CANCELADO;
+            case "deadline" -> ContractStatus.EXPIRADO;
+            case "refusal" -> ContractStatus.RECUSADO;
+            default -> null;
+        };
+    }
+
+    // Eventos chegam fora de ordem: um mais antigo que o último aplicado não volta o status atrás
+    private static void apply(Contract contract, ContractStatus status, Instant occurredAt) {
+        Instant current = contract.getStatusUpdatedAt();
+        if (current != null && occurredAt.isBefore(current)) return;
+        contract.setStatus(status);
+        contract.setStatusUpdatedAt(occurredAt);
+    }
+
+    private void retryLater(WebhookEvent event, String error, Instant now) {
+        event.setLastError(error);
+        if (event.getAttempts() >= maxAttempts) {
+            finish(event, WebhookEvent.Status.FALHOU, now);
+            log.warn("Webhook {} ({}) descartado após {} tentativas: {}", event.getId(), event.getEventName(), event.getAttempts(), error);
+            failed.increment();
+            return;
+        }
+        long delay = retryBackoffMs << Math.min(event.getAttempts() - 1, 16);
+        event.setNextAttemptAt(now.plusMillis(delay));
+        retried.increment();
+    }
+
+    private static void finish(WebhookEvent event, WebhookEvent.Status status, Instant now) {
+        event.setStatus(status);
+        event.setProcessedAt(now);
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mmi.clicksign.webhooks").tag("result", result).register(meterRegistry);
+    }
+}
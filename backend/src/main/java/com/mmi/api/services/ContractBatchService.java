@@ -0,0 +1,245 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.ClauseRepository;
+import com.mmi.models.Clause;
+import com.mmi.models.dto.BatchContractRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Geração de contratos em lote: o mesmo modelo (cláusulas com {{variáveis}}) para vários
+// inquilinos. Os parágrafos sem variáveis são diagramados uma vez só e compartilhados; os PDFs
+// são renderizados em paralelo no contractBatchPool e gravados no zip na ordem do pedido, com no
+// máximo max-in-flight PDFs em memória. Depois que o download começou não dá mais para mudar o
+// status: um contrato que falha vira um .erro.txt no zip e os demais seguem.
+@Service
+@Slf4j
+public class ContractBatchService {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{\\{\\s*([\\w.-]+)\\s*}}");
+    private static final Pattern UNSAFE_FILE_CHARS = Pattern.compile("[^a-zA-Z0-9.-]");
+
+    private final ClauseRepository clauseRepository;
+    private final ContractService contractService;
+    private final ContractLayout layout;
+    private final ContractRenderPool renderPool;
+    private final ForkJoinPool pool;
+
+    @Value("${contract.batch.max-items:500}")
+    private int maxItems;
+
+    @Value("${contract.batch.max-in-flight:0}")
+    private int maxInFlight;
+
+    public ContractBatchService(ClauseRepository clauseRepository,
+                                ContractService contractService,
+                                ContractLayout layout,
+                                ContractRenderPool renderPool,
+                                @Qualifier("contractBatchPool") ForkJoinPool pool) {
+        this.clauseRepository = clauseRepository;
+        this.contractService = contractService;
+        this.layout = layout;
+        this.renderPool = renderPool;
+        this.pool = pool;
+    }
+
+    // Parágrafo do modelo: laidOut preenchido quando não tem variáveis (diagramado uma vez só)
+    private record TemplateParagraph(String text, ContractLayout.Paragraph laidOut) {
+    }
+
+    private record TemplateClause(String title, List<TemplateParagraph> paragraphs) {
+    }
+
+    public record PreparedBatch(String title, String fileName, List<TemplateClause> clauses,
+                                List<Map<String, String>> variables) {
+        public int size() {
+            return variables.size();
+        }
+    }
+
+    // Valida o pedido e diagrama o texto fixo. Pedido inválido -> IllegalArgumentException.
+    public PreparedBatch prepare(BatchContractRequest request) throws IOException {
+        List<Long> clauseIds = request.getClauseIds();
+        List<Map<String, String>> variables = request.getVariables();
+        if (clauseIds == null || clauseIds.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos uma cláusula");
+        }
+        if (variables == null || variables.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um conjunto de variáveis");
+        }
+        if (variables.size() > maxItems) {
+            throw new IllegalArgumentException("Lote limitado a " + maxItems + " contratos");
+        }
+
+        Map<Long, Clause> byId = clauseRepository.findAllById(clauseIds).stream()
+                .collect(Collectors.toMap(Clause::getId, Function.identity()));
+
+        Set<String> placeholders = new LinkedHashSet<>();
+        collectPlaceholders(request.getTitle(), placeholders);
+        collectPlaceholders(request.getFileName(), placeholders);
+
+        List<TemplateClause> clauses = new ArrayList<>(clauseIds.size());
+        for (Long id : clauseIds) {
+            Clause clause = byId.get(id);
+            if (clause == null) {
+                throw new IllegalArgumentException("Cláusula " + id + " não encontrada");
+            }
+            collectPlaceholders(clause.getTitle(), placeholders);
+
+            List<TemplateParagraph> paragraphs = new ArrayList<>();
+            for (String paragraph : layout.paragraphs(clause.getContent())) {
+                if (collectPlaceholders(paragraph, placeholders)) {
+                    paragraphs.add(new TemplateParagraph(paragraph, null));
+                } else {
+                    paragraphs.add(new TemplateParagraph(null, layout.layout(paragraph, ContractService.TEXT_WIDTH)));
+                }
+            }
+            clauses.add(new TemplateClause(clause.getTitle(), paragraphs));
+        }
+
+        // Falha antes de começar o download: depois do primeiro byte não dá mais para responder 400
+        for (int i = 0; i < variables.size(); i++) {
+            Map<String, String> vars = variables.get(i);
+            List<String> missing = placeholders.stream()
+                    .filter(name -> vars == null || vars.get(name) == null)
+                    .toList();
+            if (!missing.isEmpty()) {
+                throw new IllegalArgumentException("Contrato " + (i + 1) + ": variáveis ausentes " + missing);
+            }
+        }
+
+        return new PreparedBatch(request.getTitle(), request.getFileName(), clauses, variables);
+    }
+
+    // Renderiza o lote e escreve o zip em out, na ordem dos conjuntos de variáveis
+    public void writeZip(PreparedBatch batch, OutputStream out) throws IOException {
+        int window = maxInFlight > 0 ? maxInFlight : pool.getParallelism() * 2;
+        Deque<ForkJoinTask<byte[]>> inFlight = new ArrayDeque<>(window);
+        ZipOutputStream zip = new ZipOutputStream(out);
+        int submitted = 0;
+        try {
+            for (int written = 0; written < batch.size(); written++) {
+                while (submitted < batch.size() && inFlight.size() < window) {
+                    Map<String, String> vars = batch.variables().get(submitted++);
+                    inFlight.add(pool.submit(() -> render(batch, vars)));
+                }
+                String name = entryName(batch, written);
+                try {
+                    writeEntry(zip, name + ".pdf", await(inFlight.poll(), written));
+                } catch (ContractFailedException e) {
+                    writeEntry(zip, name + ".erro.txt", errorReport(written, e.getCause()));
+                }
+            }
+            zip.finish();
+            zip.flush();
+        } finally {
+            inFlight.forEach(task -> task.cancel(true));
+        }
+    }
+
+    private byte[] render(PreparedBatch batch, Map<String, String> vars) throws IOException {
+        List<ContractLayout.LaidOutClause> clauses = new ArrayList<>(batch.clauses().size());
+        for (TemplateClause clause : batch.clauses()) {
+            List<ContractLayout.Paragraph> paragraphs = new ArrayList<>(clause.paragraphs().size());
+            for (TemplateParagraph paragraph : clause.paragraphs()) {
+                paragraphs.add(paragraph.laidOut() != null
+                        ? paragraph.laidOut()
+                        : layout.layout(substitute(paragraph.text(), vars), ContractService.TEXT_WIDTH));
+            }
+            clauses.add(new ContractLayout.LaidOutClause(substitute(clause.title(), vars), paragraphs));
+        }
+        // Mesmo orçamento de memória dos contratos avulsos (o lote já roda no seu próprio pool)
+        try (ContractRenderPool.Reservation ignored = renderPool.reserve(renderPool.estimate(null))) {
+            return contractService.renderContractPDF(substitute(batch.title(), vars), clauses, null);
+        }
+    }
+
+    private static byte[] await(ForkJoinTask<byte[]> task, int index) throws IOException, ContractFailedException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Geração do lote interrompida", e);
+        } catch (ExecutionException e) {
+            log.error("Falha ao gerar o contrato {} do lote", index + 1, e.getCause());
+            throw new ContractFailedException(e.getCause());
+        }
+    }
+
+    private static byte[] errorReport(int index, Throwable cause) {
+        // O ForkJoinTask embrulha exceções checadas em RuntimeException: o motivo útil está na mais interna
+        Throwable root = cause;
+        while (root.getCause() != null) root = root.getCause();
+        String message = root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+        return ("Falha ao gerar o contrato " + (index + 1) + " do lote: " + message + "\n")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    // PDFs já vêm comprimidos: grava sem deflate (STORED), só com o CRC
+    private static void writeEntry(ZipOutputStream zip, String name, byte[] content) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(content.length);
+        entry.setCompressedSize(content.length);
+        entry.setCrc(crc.getValue());
+        zip.putNextEntry(entry);
+        zip.write(content);
+        zip.closeEntry();
+    }
+
+    private static String entryName(PreparedBatch batch, int index) {
+        Map<String, String> vars = batch.variables().get(index);
+        String base = batch.fileName() != null && !batch.fileName().isBlank()
+                ? substitute(batch.fileName(), vars)
+                : batch.title() != null ? substitute(batch.title(), vars) : "contrato";
+        return String.format("%03d_%s", index + 1, UNSAFE_FILE_CHARS.matcher(base).replaceAll("_"));
+    }
+
+    // Retorna true se o texto tem alguma variável
+    private static boolean collectPlaceholders(String text, Set<String> into) {
+        if (text == null) return false;
+        Matcher matcher = PLACEHOLDER.matcher(text);
+        boolean found = false;
+        while (matcher.find()) {
+            into.add(matcher.group(1));
+            found = true;
+        }
+        return found;
+    }
+
+    private static String substitute(String text, Map<String, String> vars) {
+        if (text == null || text.indexOf("{{") < 0) return text;
+        return PLACEHOLDER.matcher(text).replaceAll(m -> Matcher.quoteReplacement(vars.get(m.group(1))));
+    }
+
+    // Falha de um contrato só (o lote continua); a causa original vem em getCause()
+    private static final class ContractFailedException extends Exception {
+        ContractFailedException(Throwable cause) {
+            super(cause);
+        }
+    }
+}
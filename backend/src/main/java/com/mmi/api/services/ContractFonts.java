@@ -0,0 +1,141 @@
+package com.mmi.api.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.fontbox.ttf.CmapLookup;
+import org.apache.fontbox.ttf.TTFParser;
+import org.apache.fontbox.ttf.TrueTypeFont;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType0Font;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Fontes dos contratos. Por padrão usa a Liberation Serif embutida (métricas da Times New Roman,
+// licença OFL, em resources/fonts), que cobre aspas curvas, travessões e acentos que a Times
+// Type1 padrão (WinAnsi) não codifica. Cada TTF é lido e interpretado uma vez só; os documentos
+// compartilham o mesmo TrueTypeFont e embutem apenas o subconjunto de glifos usados, no save().
+// Com contract.fonts.embedded=false (ou sem os arquivos) volta para a Times Type1 não embutida.
+@Component
+@Slf4j
+public class ContractFonts {
+
+    private static final String REGULAR_RESOURCE = "fonts/LiberationSerif-Regular.ttf";
+    private static final String BOLD_RESOURCE = "fonts/LiberationSerif-Bold.ttf";
+
+    private final Face normal;
+    private final Face bold;
+
+    public ContractFonts(@Value("${contract.fonts.embedded:true}") boolean embedded) {
+        Face regularFace = null;
+        Face boldFace = null;
+        if (embedded) {
+            try {
+                regularFace = Face.trueType(REGULAR_RESOURCE);
+                boldFace = Face.trueType(BOLD_RESOURCE);
+            } catch (IOException e) {
+                log.warn("Fontes TrueType dos contratos indisponíveis, usando Times Type1", e);
+                regularFace = null;
+                boldFace = null;
+            }
+        }
+        this.normal = regularFace != null ? regularFace : Face.standard(PDType1Font.TIMES_ROMAN);
+        this.bold = boldFace != null ? boldFace : Face.standard(PDType1Font.TIMES_BOLD);
+    }
+
+    public Face normal() {
+        return normal;
+    }
+
+    public Face bold() {
+        return bold;
+    }
+
+    public Face face(boolean isBold) {
+        return isBold ? bold : normal;
+    }
+
+    public boolean isEmbedded() {
+        return normal.trueType != null;
+    }
+
+    // Fontes prontas para um documento. As TrueType são registradas para subconjunto: só os glifos
+    // realmente desenhados vão para o arquivo quando o documento é salvo.
+    public DocumentFonts forDocument(PDDocument document) throws IOException {
+        return new DocumentFonts(normal.load(document), bold.load(document));
+    }
+
+    public record DocumentFonts(PDFont normal, PDFont bold) {
+        public PDFont font(boolean isBold) {
+            return isBold ? bold : normal;
+        }
+    }
+
+    // Uma fonte e sua tabela de larguras por caractere (unidades de 1/1000 em). Caracteres sem glifo
+    // ficam com NaN; as larguras são todas calculadas na carga, então medir texto não toca na fonte.
+    public static final class Face {
+
+        private final PDFont standard;
+        private final TrueTypeFont trueType;
+        private final float[] widths = new float[Character.MAX_VALUE + 1];
+
+        private Face(PDFont standard, TrueTypeFont trueType) {
+            this.standard = standard;
+            this.trueType = trueType;
+            Arrays.fill(widths, Float.NaN);
+        }
+
+        static Face trueType(String resource) throws IOException {
+            TrueTypeFont font;
+            try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+                // Dados em memória: o TrueTypeFont é compartilhado entre documentos e threads
+                font = new TTFParser().parse(in);
+            }
+            Face face = new Face(null, font);
+            CmapLookup cmap = font.getUnicodeCmapLookup();
+            float scale = 1000f / font.getUnitsPerEm();
+            for (int c = 0; c <= Character.MAX_VALUE; c++) {
+                if (Character.isSurrogate((char) c)) continue;
+                int gid = cmap.getGlyphId(c);
+                if (gid > 0) face.widths[c] = font.getAdvanceWidth(gid) * scale;
+            }
+            return face;
+        }
+
+        static Face standard(PDFont font) {
+            Face face = new Face(font, null);
+            // Type1 padrão: só o que o encoding WinAnsi consegue desenhar (nada acima de U+2122)
+            for (char c = ' '; c < 0x2200; c++) {
+                try {
+                    face.widths[c] = font.getStringWidth(String.valueOf(c));
+                } catch (IllegalArgumentException | IOException e) {
+                    // Sem glifo no encoding da fonte
+                }
+            }
+            return face;
+        }
+
+        PDFont load(PDDocument document) throws IOException {
+            return trueType != null ? PDType0Font.load(document, trueType, true) : standard;
+        }
+
+        public boolean canDisplay(char c) {
+            return !Float.isNaN(widths[c]);
+        }
+
+        // Largura em unidades de 1/1000 em; caracteres sem glifo não contam (devem ser trocados antes)
+        public float stringWidth(String text) {
+            float width = 0;
+            for (int i = 0; i < text.length(); i++) {
+                float w = widths[text.charAt(i)];
+                if (!Float.isNaN(w)) width += w;
+            }
+            return width;
+        }
+    }
+}
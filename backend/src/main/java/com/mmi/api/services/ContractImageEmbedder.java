@@ -0,0 +1,204 @@
+package com.mmi.api.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.LosslessFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Future;
+
+// Prepara as fotos anexadas ao contrato para o PDF. Cada foto ocupa no máximo meia página A4,
+// então não faz sentido embutir a resolução da câmera: JPEGs que já cabem no slot na resolução
+// configurada vão como estão (sem recodificar) e os maiores são reduzidos para essa resolução.
+// A decodificação roda em paralelo no contractImageExecutor; o PDDocument (que não é thread-safe)
+// só é tocado em embed(), na thread que monta o PDF.
+@Component
+@Slf4j
+public class ContractImageEmbedder {
+
+    private final ThreadPoolTaskExecutor executor;
+    private final int dpi;
+    private final float jpegQuality;
+
+    public ContractImageEmbedder(@Qualifier("contractImageExecutor") ThreadPoolTaskExecutor executor,
+                                 @Value("${contract.images.dpi:150}") int dpi,
+                                 @Value("${contract.images.jpeg-quality:0.85}") float jpegQuality) {
+        this.executor = executor;
+        this.dpi = dpi;
+        this.jpegQuality = jpegQuality;
+    }
+
+    // Parâmetros que mudam o resultado da preparação (entram na chave do cache de PDFs)
+    public String settings() {
+        return "dpi=" + dpi + ";jpeg-quality=" + jpegQuality;
+    }
+
+    // Dispara a preparação de todas as imagens; os futures vêm na mesma ordem dos arquivos
+    public List<Future<PreparedImage>> prepareAll(List<MultipartFile> files, float slotWidth, float slotHeight) {
+        List<Future<PreparedImage>> futures = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            futures.add(executor.submit(() -> prepare(file, slotWidth, slotHeight)));
+        }
+        return futures;
+    }
+
+    PreparedImage prepare(MultipartFile file, float slotWidth, float slotHeight) throws IOException {
+        byte[] bytes = file.getBytes();
+        try (ImageInputStream in = ImageIO.createImageInputStream(new ByteArrayInputStream(bytes))) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return PreparedImage.original(bytes, file.getOriginalFilename());
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                boolean jpeg = "jpeg".equalsIgnoreCase(reader.getFormatName());
+
+                // Tamanho em que será desenhada (mesma regra do ContractService: nunca amplia) e os
+                // pixels que isso pede na resolução configurada
+                float scale = Math.min(1f, Math.min(slotWidth / width, slotHeight / height));
+                int targetWidth = Math.max(1, Math.round(width * scale / 72f * dpi));
+                int targetHeight = Math.max(1, Math.round(height * scale / 72f * dpi));
+
+                if (width <= targetWidth && height <= targetHeight) {
+                    return jpeg
+                            ? PreparedImage.jpeg(bytes, width, height)
+                            : PreparedImage.original(bytes, file.getOriginalFilename());
+                }
+
+                // Decodifica já subamostrado (não monta o bitmap inteiro da câmera) e termina a redução com interpolação
+                int step = Math.max(1, Math.min(width / targetWidth, height / targetHeight));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                BufferedImage scaled = resize(reader.read(0, param), targetWidth, targetHeight);
+
+                if (scaled.getColorModel().hasAlpha()) {
+                    return PreparedImage.lossless(scaled, width, height);
+                }
+                return PreparedImage.jpeg(encodeJpeg(scaled), width, height);
+            } catch (IOException | RuntimeException e) {
+                // Ex.: JPEG CMYK, que o ImageIO não decodifica; segue o caminho antigo do PDFBox
+                log.debug("Imagem {} não pôde ser reduzida, será embutida como está: {}",
+                        file.getOriginalFilename(), e.getMessage());
+                return PreparedImage.original(bytes, file.getOriginalFilename());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int width, int height) {
+        if (source.getWidth() == width && source.getHeight() == height) return source;
+
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB
+                : source.getColorModel().getNumComponents() == 1 ? BufferedImage.TYPE_BYTE_GRAY
+                : BufferedImage.TYPE_3BYTE_BGR;
+        BufferedImage target = new BufferedImage(width, height, type);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // Imagem pronta para entrar no PDF. width/height são as dimensões originais em pixels, que
+    // definem o tamanho desenhado (a versão reduzida ocupa exatamente o mesmo espaço).
+    public static final class PreparedImage {
+
+        private enum Kind { JPEG, LOSSLESS, ORIGINAL }
+
+        private final Kind kind;
+        private final byte[] bytes;
+        private final BufferedImage image;
+        private final String name;
+        private int width;
+        private int height;
+
+        private PreparedImage(Kind kind, byte[] bytes, BufferedImage image, String name, int width, int height) {
+            this.kind = kind;
+            this.bytes = bytes;
+            this.image = image;
+            this.name = name;
+            this.width = width;
+            this.height = height;
+        }
+
+        static PreparedImage jpeg(byte[] bytes, int width, int height) {
+            return new PreparedImage(Kind.JPEG, bytes, null, null, width, height);
+        }
+
+        static PreparedImage lossless(BufferedImage image, int width, int height) {
+            return new PreparedImage(Kind.LOSSLESS, null, image, null, width, height);
+        }
+
+        // Sem redução (não-JPEG pequeno ou formato que o ImageIO não lê): o PDFBox decide, como antes; dimensões vêm no embed
+        static PreparedImage original(byte[] bytes, String name) {
+            return new PreparedImage(Kind.ORIGINAL, bytes, null, name, 0, 0);
+        }
+
+        public PDImageXObject embed(PDDocument document) throws IOException {
+            PDImageXObject embedded = switch (kind) {
+                case JPEG -> JPEGFactory.createFromByteArray(document, bytes);
+                case LOSSLESS -> LosslessFactory.createFromImage(document, image);
+                case ORIGINAL -> PDImageXObject.createFromByteArray(document, bytes, name);
+            };
+            if (kind == Kind.ORIGINAL) {
+                width = embedded.getWidth();
+                height = embedded.getHeight();
+            }
+            return embedded;
+        }
+
+        public int width() {
+            return width;
+        }
+
+        public int height() {
+            return height;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.storage.SpooledMultipartFile;
+import com.mmi.models.dto.ClauseDTO;
+import com.mmi.models.dto.ContractJobDTO;
+import com.mmi.models.dto.CreateContractRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+// Criação de contratos em background. O request só copia os uploads para disco e devolve o id
+// do job; as etapas (Cloudinary, PDF, banco, Clicksign) rodam no contractJobExecutor. Só as etapas
+// idempotentes são retentadas aqui; as chamadas externas já têm a retentativa do OutboundHttp.
+// O andamento fica disponível por polling ou SSE.
+@Service
+@Slf4j
+public class ContractJobService {
+
+    public enum Status { QUEUED, RUNNING, COMPLETED, FAILED }
+
+    public enum Stage {
+        // Repetir o upload deixaria imagens órfãs no Cloudinary
+        UPLOAD_IMAGES(false),
+        RENDER_PDF(true),
+        // Blob endereçado por conteúdo e contrato gravado pelo uuid
+        SAVE_CONTRACT(true),
+        // Um POST /documents que falhou pode ter criado o documento; repetir duplicaria no Clicksign
+        SEND_TO_CLICKSIGN(false);
+
+        private final boolean idempotent;
+
+        Stage(boolean idempotent) {
+            this.idempotent = idempotent;
+        }
+    }
+
+    private final ContractService contractService;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    @Value("${contract.jobs.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${contract.jobs.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${contract.jobs.retention-ms:3600000}")
+    private long retentionMs;
+
+    @Value("${contract.jobs.sse-timeout-ms:300000}")
+    private long sseTimeoutMs;
+
+    public ContractJobService(ContractService contractService,
+                              @Qualifier("contractJobExecutor") ThreadPoolTaskExecutor executor,
+                              MeterRegistry meterRegistry) {
+        this.contractService = contractService;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Enfileira a criação. Lança IllegalStateException se a fila estiver cheia e
+    // IllegalArgumentException se o pedido citar uma cláusula inexistente.
+    public ContractJobDTO submit(CreateContractRequest request, List<MultipartFile> files) throws IOException {
+        purgeExpired();
+        // Cláusulas da biblioteca lidas agora: id inválido é erro do pedido, e uma edição durante a
+        // geração não muda o contrato pela metade
+        List<ClauseDTO> clauses = contractService.resolveClauses(request);
+
+        Path workDir = Files.createTempDirectory("contract-job-");
+        List<MultipartFile> spooled = new ArrayList<>();
+        try {
+            if (files != null) {
+                for (int i = 0; i < files.size(); i++) {
+                    spooled.add(SpooledMultipartFile.spool(files.get(i), workDir, i));
+                }
+            }
+        } catch (IOException e) {
+            deleteQuietly(workDir);
+            throw e;
+        }
+
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> run(job, request, clauses, spooled, workDir));
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            deleteQuietly(workDir);
+            throw new IllegalStateException("Fila de geração de contratos cheia, tente novamente em instantes");
+        }
+        return job.snapshot();
+    }
+
+    public Optional<ContractJobDTO> find(String jobId) {
+        Job job = jobs.get(jobId);
+        return job != null ? Optional.of(job.snapshot()) : Optional.empty();
+    }
+
+    // Stream SSE com o estado atual e cada mudança seguinte; fecha quando o job termina
+    public Optional<SseEmitter> subscribe(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) return Optional.empty();
+
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        job.emitters.add(emitter);
+        emitter.onCompletion(() -> job.emitters.remove(emitter));
+        emitter.onTimeout(() -> job.emitters.remove(emitter));
+        emitter.onError(e -> job.emitters.remove(emitter));
+
+        ContractJobDTO current = job.snapshot();
+        send(job, emitter, current);
+        if (isFinished(current)) emitter.complete();
+        return Optional.of(emitter);
+    }
+
+    private void run(Job job, CreateContractRequest request, List<ClauseDTO> clauses, List<MultipartFile> files, Path workDir) {
+        UUID contractUuid = UUID.randomUUID();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Status outcome = Status.FAILED;
+        try {
+            List<String> imageUrls = stage(job, Stage.UPLOAD_IMAGES,
+                    () -> contractService.uploadImages(contractUuid, files));
+            Path pdf = stage(job, Stage.RENDER_PDF,
+                    () -> contractService.generateContractPDF(request.getTitle(), clauses, files, workDir));
+            stage(job, Stage.SAVE_CONTRACT,
+                    () -> contractService.saveGeneratedContract(contractUuid, request.getTitle(), imageUrls, pdf));
+            update(job, j -> j.contractUuid = contractUuid);
+            stage(job, Stage.SEND_TO_CLICKSIGN,
+                    () -> contractService.sendToClicksign(contractUuid, pdf));
+
+            update(job, j -> j.status = Status.COMPLETED);
+            outcome = Status.COMPLETED;
+        } catch (Exception e) {
+            log.error("Job de contrato {} falhou na etapa {}", job.id, job.stage, e);
+            update(job, j -> {
+                j.status = Status.FAILED;
+                j.error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            });
+        } finally {
+            deleteQuietly(workDir);
+            sample.stop(Timer.builder("mmi.contract.job.duration")
+                    .tag("status", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+            Counter.builder("mmi.contract.jobs")
+                    .tag("status", outcome.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    private <T> T stage(Job job, Stage stage, Callable<T> step) throws Exception {
+        Timer timer = Timer.builder("mmi.contract.job.stage")
+                .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+        int attempts = stage.idempotent ? maxAttempts : 1;
+        for (int attempt = 1; ; attempt++) {
+            int current = attempt;
+            update(job, j -> {
+                j.status = Status.RUNNING;
+                j.stage = stage;
+                j.attempt = current;
+            });
+            try {
+                return timer.recordCallable(step);
+            } catch (Exception e) {
+                if (attempt >= attempts) throw e;
+                log.warn("Job de contrato {}: etapa {} falhou (tentativa {}/{}): {}",
+                        job.id, stage, attempt, attempts, e.getMessage());
+                Thread.sleep(retryBackoffMs * attempt);
+            }
+        }
+    }
+
+    private void update(Job job, Consumer<Job> change) {
+        ContractJobDTO snapshot;
+        synchronized (job) {
+            change.accept(job);
+            job.updatedAt = Instant.now();
+            snapshot = job.snapshot();
+        }
+        for (SseEmitter emitter : job.emitters) {
+            send(job, emitter, snapshot);
+            if (isFinished(snapshot)) emitter.complete();
+        }
+    }
+
+    private void send(Job job, SseEmitter emitter, ContractJobDTO snapshot) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(snapshot));
+        } catch (IOException | IllegalStateException e) {
+            // Cliente desconectou ou o emitter já foi encerrado
+            job.emitters.remove(emitter);
+        }
+    }
+
+    private void purgeExpired() {
+        Instant limit = Instant.now().minusMillis(retentionMs);
+        jobs.values().removeIf(job -> {
+            ContractJobDTO snapshot = job.snapshot();
+            return isFinished(snapshot) && snapshot.updatedAt().isBefore(limit);
+        });
+    }
+
+    private static boolean isFinished(ContractJobDTO snapshot) {
+        return Status.COMPLETED.name().equals(snapshot.status()) || Status.FAILED.name().equals(snapshot.status());
+    }
+
+    private static void deleteQuietly(Path dir) {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        } catch (IOException e) {
+            log.warn("Não foi possível apagar o diretório temporário {}", dir, e);
+        }
+    }
+
+    private static final class Job {
+        final String id;
+        final Instant createdAt = Instant.now();
+        final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+
+        Status status = Status.QUEUED;
+        Stage stage;
+        int attempt;
+        UUID contractUuid;
+        String error;
+        Instant updatedAt = createdAt;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        synchronized ContractJobDTO snapshot() {
+            return new ContractJobDTO(id, status.name(), stage != null ? stage.name() : null, attempt,
+                    contractUuid, error, createdAt, updatedAt);
+        }
+    }
+}
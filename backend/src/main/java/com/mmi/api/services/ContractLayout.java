@@ -0,0 +1,170 @@
+package com.mmi.api.services;
+
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Quebra de linhas dos contratos, separada do desenho no PDF. As larguras vêm das tabelas por
+// caractere do ContractFonts (em vez de PDFont.getStringWidth a cada palavra) e os buffers de
+// linha são reaproveitados por thread.
+@Component
+public class ContractLayout {
+
+    public static final float FONT_SIZE = 12;
+
+    // Substitui caracteres que a fonte não tem (o PDFBox lançaria exceção no showText)
+    private static final char MISSING_GLYPH = '?';
+
+    private static final Pattern LINE_BREAK = Pattern.compile("\\r?\\n");
+    // *trecho em negrito* ou palavra comum; asteriscos soltos são descartados
+    private static final Pattern WORD = Pattern.compile("\\*([^*]+)\\*|([^*\\s]+)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    public record Word(String text, boolean bold, float width) {
+    }
+
+    // Linha pronta para desenho. wordSpacing é o espaço extra por espaço (ajuste no TJ) que justifica a linha.
+    public record Line(List<Word> words, boolean justified, float wordSpacing) {
+    }
+
+    // Parágrafo já diagramado. Os vazios (Enter duplo) só avançam uma linha.
+    public record Paragraph(boolean blank, List<Line> lines) {
+        public static final Paragraph BLANK = new Paragraph(true, List.of());
+    }
+
+    public record LaidOutClause(String title, List<Paragraph> paragraphs) {
+    }
+
+    private final ContractFonts fonts;
+    private final float normalSpace;
+    private final float boldSpace;
+
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    public ContractLayout(ContractFonts fonts) {
+        this.fonts = fonts;
+        this.normalSpace = fonts.normal().stringWidth(" ") / 1000 * FONT_SIZE;
+        this.boldSpace = fonts.bold().stringWidth(" ") / 1000 * FONT_SIZE;
+    }
+
+    public ContractFonts fonts() {
+        return fonts;
+    }
+
+    public String[] paragraphs(String content) {
+        return LINE_BREAK.split(content != null ? content : "");
+    }
+
+    // Diagrama o conteúdo de uma cláusula, parágrafo por parágrafo
+    public List<Paragraph> layoutContent(String content, float maxWidth) throws IOException {
+        String[] paragraphs = paragraphs(content);
+        List<Paragraph> laidOut = new ArrayList<>(paragraphs.length);
+        for (String paragraph : paragraphs) {
+            laidOut.add(layout(paragraph, maxWidth));
+        }
+        return laidOut;
+    }
+
+    public Paragraph layout(String paragraph, float maxWidth) throws IOException {
+        if (paragraph.trim().isEmpty()) return Paragraph.BLANK;
+        return new Paragraph(false, layoutParagraph(paragraph, maxWidth));
+    }
+
+    // Largura do texto em pontos, no tamanho pedido
+    public float width(boolean bold, String text, float fontSize) {
+        return fonts.face(bold).stringWidth(text) / 1000 * fontSize;
+    }
+
+    // Texto pronto para showText: caracteres sem glifo na fonte viram '?'
+    public String displayable(String text, boolean bold) {
+        if (text == null) return "";
+        ContractFonts.Face face = fonts.face(bold);
+        for (int i = 0; i < text.length(); i++) {
+            if (!face.canDisplay(text.charAt(i))) {
+                char[] chars = text.toCharArray();
+                for (int j = i; j < chars.length; j++) {
+                    if (!face.canDisplay(chars[j])) chars[j] = MISSING_GLYPH;
+                }
+                return new String(chars);
+            }
+        }
+        return text;
+    }
+
+    // Quebra um parágrafo em linhas de até maxWidth. Todas as linhas são justificadas, menos a última.
+    public List<Line> layoutParagraph(String paragraph, float maxWidth) throws IOException {
+        Buffers buf = buffers.get();
+        List<Word> words = parseWords(paragraph, buf.words);
+        List<Line> lines = new ArrayList<>();
+
+        buf.line.clear();
+        float currentLineWidth = 0;
+        for (Word word : words) {
+            if (currentLineWidth + word.width() > maxWidth) {
+                // Linha cheia -> justificada
+                lines.add(toLine(buf.line, maxWidth, true));
+                buf.line.clear();
+                currentLineWidth = 0;
+            }
+            buf.line.add(word);
+            currentLineWidth += word.width() + spaceWidth(word);
+        }
+
+        // Fim do parágrafo: a última linha fica alinhada à esquerda
+        if (!buf.line.isEmpty()) {
+            lines.add(toLine(buf.line, maxWidth, false));
+        }
+        buf.line.clear();
+        words.clear();
+        return lines;
+    }
+
+    List<Word> parseWords(String text, List<Word> into) throws IOException {
+        into.clear();
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            String boldSection = matcher.group(1);
+            if (boldSection != null) {
+                for (String subWord : WHITESPACE.split(boldSection)) {
+                    if (!subWord.isEmpty()) into.add(word(subWord, true));
+                }
+            } else {
+                into.add(word(matcher.group(0), false));
+            }
+        }
+        return into;
+    }
+
+    private Word word(String text, boolean bold) {
+        String shown = displayable(text, bold);
+        return new Word(shown, bold, fonts.face(bold).stringWidth(shown) / 1000 * FONT_SIZE);
+    }
+
+    private float spaceWidth(Word word) {
+        return word.bold() ? boldSpace : normalSpace;
+    }
+
+    private Line toLine(List<Word> lineWords, float maxWidth, boolean justify) {
+        float extraSpace = 0;
+        // Só justifica se tiver mais de uma palavra
+        if (justify && lineWords.size() > 1) {
+            float totalWordWidth = 0;
+            for (Word w : lineWords) totalWordWidth += w.width();
+            float totalStandardSpacesWidth = 0;
+            for (int i = 0; i < lineWords.size() - 1; i++) {
+                totalStandardSpacesWidth += spaceWidth(lineWords.get(i));
+            }
+            extraSpace = (maxWidth - totalWordWidth - totalStandardSpacesWidth) / (lineWords.size() - 1);
+        }
+        return new Line(List.copyOf(lineWords), justify, extraSpace);
+    }
+
+    private static final class Buffers {
+        final List<Word> words = new ArrayList<>(256);
+        final List<Word> line = new ArrayList<>(32);
+    }
+}
@@ -0,0 +1,102 @@
+package com.mmi.api.services;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceGray;
+import org.apache.pdfbox.pdmodel.graphics.color.PDDeviceRGB;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Papel timbrado dos contratos. O JPEG é lido do classpath uma vez só e embutido em cada PDF
+// como está (DCTDecode, sem decodificar/recodificar), dentro de um único Form XObject que todas
+// as páginas referenciam.
+@Component
+@Slf4j
+public class ContractLetterhead {
+
+    private static final String RESOURCE = "images/papel_timbrado.jpg";
+
+    private final String resource;
+    private final byte[] jpegBytes;
+    private final int width;
+    private final int height;
+    private final int bitsPerComponent;
+    private final PDColorSpace colorSpace;
+
+    public ContractLetterhead() {
+        this(RESOURCE);
+    }
+
+    // Outro fundo de página do classpath (ex.: a página de assinaturas)
+    ContractLetterhead(String resource) {
+        this.resource = resource;
+        byte[] bytes = null;
+        int w = 0, h = 0, bpc = 8;
+        PDColorSpace cs = null;
+        try (InputStream in = new ClassPathResource(resource).getInputStream();
+             PDDocument probe = new PDDocument()) {
+            bytes = in.readAllBytes();
+            // Lê só o cabeçalho do JPEG para saber dimensões e espaço de cor
+            PDImageXObject image = JPEGFactory.createFromByteArray(probe, bytes);
+            w = image.getWidth();
+            h = image.getHeight();
+            bpc = image.getBitsPerComponent();
+            cs = image.getColorSpace();
+        } catch (IOException e) {
+            log.warn("Papel timbrado {} indisponível, contratos sairão sem fundo", resource, e);
+            bytes = null;
+        }
+        this.jpegBytes = bytes;
+        this.width = w;
+        this.height = h;
+        this.bitsPerComponent = bpc;
+        this.colorSpace = cs;
+    }
+
+    public boolean isAvailable() {
+        return jpegBytes != null;
+    }
+
+    // Cria no documento o Form XObject do fundo, do tamanho da página. Retorna null se não houver papel timbrado.
+    public PDFormXObject createForm(PDDocument document, PDRectangle pageSize) throws IOException {
+        if (jpegBytes == null) return null;
+
+        PDImageXObject image = embedImage(document);
+
+        PDFormXObject form = new PDFormXObject(document);
+        form.setBBox(new PDRectangle(pageSize.getWidth(), pageSize.getHeight()));
+        PDResources resources = new PDResources();
+        COSName imageName = resources.add(image);
+        form.setResources(resources);
+
+        String content = "q " + pageSize.getWidth() + " 0 0 " + pageSize.getHeight() + " 0 0 cm /"
+                + imageName.getName() + " Do Q";
+        try (OutputStream out = form.getContentStream().createOutputStream()) {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        }
+        return form;
+    }
+
+    private PDImageXObject embedImage(PDDocument document) throws IOException {
+        if (colorSpace == PDDeviceRGB.INSTANCE || colorSpace == PDDeviceGray.INSTANCE) {
+            // Dimensões já conhecidas: só copia os bytes para o stream do documento
+            return new PDImageXObject(document, new ByteArrayInputStream(jpegBytes), COSName.DCT_DECODE,
+                    width, height, bitsPerComponent, colorSpace);
+        }
+        // CMYK/ICC precisam dos ajustes que o JPEGFactory faz (continua sem recodificar)
+        return JPEGFactory.createFromByteArray(document, jpegBytes);
+    }
+}
@@ -0,0 +1,258 @@
+package com.mmi.api.services;
+
+import com.mmi.models.dto.ClauseDTO;
+import com.mmi.models.dto.PdfCacheStatsDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// Cache em disco dos PDFs gerados, chaveado pelo SHA-256 das entradas canonizadas (título,
+// cláusulas, hash de cada anexo e configuração de renderização). Enquanto o admin regera o mesmo
+// contrato ajustando outra coisa, o PDF sai daqui em vez de ser renderizado de novo. Limitado a
+// max-size-mb, com remoção do menos usado recentemente; a data de modificação dos arquivos guarda a
+// ordem de uso, então o LRU sobrevive a um restart.
+@Component
+@Slf4j
+public class ContractPdfCache {
+
+    private static final String EXTENSION = ".pdf";
+
+    private final Path dir;
+    private final long maxBytes;
+
+    // chave -> tamanho em bytes, em ordem de acesso (o primeiro é o menos usado)
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public ContractPdfCache(@Value("${contract.pdf-cache.dir:storage/pdf-cache}") String dir,
+                            @Value("${contract.pdf-cache.max-size-mb:256}") long maxSizeMb,
+                            MeterRegistry meterRegistry) throws IOException {
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+
+        this.hits = Counter.builder("mmi.contract.pdf.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mmi.contract.pdf.cache").tag("result", "miss").register(meterRegistry);
+        this.evictions = Counter.builder("mmi.contract.pdf.cache.evictions").register(meterRegistry);
+        Gauge.builder("mmi.contract.pdf.cache.size", this, c -> c.stats().sizeBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("mmi.contract.pdf.cache.entries", this, c -> c.stats().entries())
+                .register(meterRegistry);
+
+        if (isEnabled()) {
+            Files.createDirectories(this.dir);
+            loadIndex();
+        }
+    }
+
+    public boolean isEnabled() {
+        return maxBytes > 0;
+    }
+
+    // Chave das entradas. Quebras de linha são normalizadas (o mesmo texto colado do Windows ou não
+    // gera o mesmo PDF); os anexos entram pelo conteúdo e pelo nome, que o PDFBox usa para
+    // reconhecer o formato. renderSettings deve mudar sempre que a renderização mudar.
+    public String key(String title, List<ClauseDTO> clauses, List<MultipartFile> attachments, String renderSettings) throws IOException {
+        MessageDigest digest = sha256();
+        update(digest, renderSettings);
+        update(digest, title != null && !title.trim().isEmpty() ? title : null);
+        digest.update(intBytes(clauses.size()));
+        for (ClauseDTO clause : clauses) {
+            update(digest, normalize(clause.getTitle()));
+            update(digest, normalize(clause.getContent()));
+        }
+        int attachmentCount = attachments != null ? attachments.size() : 0;
+        digest.update(intBytes(attachmentCount));
+        for (int i = 0; i < attachmentCount; i++) {
+            MultipartFile file = attachments.get(i);
+            update(digest, file.getOriginalFilename());
+            update(digest, attachmentDigest(file));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    // Em caso de acerto, copia o PDF guardado para um temporário em targetDir
+    public Optional<Path> copyTo(String key, Path targetDir) throws IOException {
+        Path cached = file(key);
+        synchronized (this) {
+            // get (e não containsKey) para mover a entrada para o fim da ordem de acesso
+            if (entries.get(key) == null) {
+                misses.increment();
+                return Optional.empty();
+            }
+        }
+        Path copy = Files.createTempFile(targetDir, "contrato-", EXTENSION);
+        try {
+            Files.copy(cached, copy, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(cached, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (NoSuchFileException e) {
+            // Removido por fora ou despejado entre a consulta e a cópia
+            Files.deleteIfExists(copy);
+            forget(key);
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(copy);
+    }
+
+    // Guarda uma cópia do PDF recém-gerado; falhas só são registradas (o cache é opcional)
+    public void put(String key, Path pdf) {
+        if (!isEnabled()) return;
+        try {
+            long size = Files.size(pdf);
+            if (size > maxBytes) return;
+
+            Path tmp = Files.createTempFile(dir, "entry-", ".part");
+            try {
+                Files.copy(pdf, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, file(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException e) {
+                Files.deleteIfExists(tmp);
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(tmp);
+                throw e;
+            }
+
+            synchronized (this) {
+                Long previous = entries.put(key, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evictIfNeeded();
+            }
+        } catch (IOException e) {
+            log.warn("Não foi possível guardar o PDF {} no cache: {}", key, e.getMessage());
+        }
+    }
+
+    public synchronized PdfCacheStatsDTO stats() {
+        long hitCount = (long) hits.count();
+        long missCount = (long) misses.count();
+        long lookups = hitCount + missCount;
+        return new PdfCacheStatsDTO(isEnabled(), hitCount, missCount, (long) evictions.count(),
+                entries.size(), totalBytes, maxBytes, lookups > 0 ? (double) hitCount / lookups : 0);
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            try {
+                Files.deleteIfExists(file(entry.getKey()));
+            } catch (IOException e) {
+                log.warn("Não foi possível remover {} do cache de PDFs: {}", entry.getKey(), e.getMessage());
+            }
+            totalBytes -= entry.getValue();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private synchronized void forget(String key) {
+        Long size = entries.remove(key);
+        if (size != null) totalBytes -= size;
+    }
+
+    // Reconstrói o índice a partir dos arquivos, do mais antigo para o mais recente
+    private void loadIndex() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> cached = files
+                    .filter(p -> p.getFileName().toString().endsWith(EXTENSION))
+                    .sorted(Comparator.comparing(ContractPdfCache::lastModified))
+                    .toList();
+            synchronized (this) {
+                for (Path p : cached) {
+                    String name = p.getFileName().toString();
+                    long size = Files.size(p);
+                    entries.put(name.substring(0, name.length() - EXTENSION.length()), size);
+                    totalBytes += size;
+                }
+                evictIfNeeded();
+            }
+        }
+        // Cópias interrompidas de uma execução anterior
+        try (Stream<Path> parts = Files.list(dir)) {
+            for (Path p : parts.filter(p -> p.getFileName().toString().endsWith(".part")).toList()) {
+                Files.deleteIfExists(p);
+            }
+        }
+        log.info("Cache de PDFs em {}: {} arquivos, {} KB", dir, entries.size(), totalBytes / 1024);
+    }
+
+    private Path file(String key) {
+        return dir.resolve(key + EXTENSION);
+    }
+
+    private static FileTime lastModified(Path p) {
+        try {
+            return Files.getLastModifiedTime(p);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static String attachmentDigest(MultipartFile file) throws IOException {
+        MessageDigest digest = sha256();
+        try (InputStream in = file.getInputStream();
+             OutputStream out = new DigestOutputStream(OutputStream.nullOutputStream(), digest)) {
+            in.transferTo(out);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.replace("\r\n", "\n") : null;
+    }
+
+    // Cada campo vai com o tamanho na frente, para "ab"+"c" e "a"+"bc" não colidirem; null != ""
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update(intBytes(-1));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(intBytes(bytes.length));
+        digest.update(bytes);
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.mmi.api.services;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Orçamento de memória da geração de PDFs. Cada renderização reserva uma estimativa do heap que
+// vai usar antes de começar; quando o orçamento acaba, as próximas esperam na fila (semáforo
+// justo) em vez de derrubar a JVM com OutOfMemoryError. Os documentos do PDFBox ficam em memória
+// só até spill-threshold-mb e depois passam para arquivos temporários.
+@Component
+@Slf4j
+public class ContractRenderPool {
+
+    private static final long KB = 1024;
+    private static final long MB = 1024 * KB;
+
+    // Heap de um contrato só com texto (páginas, fontes, papel timbrado e o buffer de saída)
+    private static final long BASE_ESTIMATE = 8 * MB;
+    // Bitmap reduzido de uma foto em meio A4 a 150 dpi (~1030x670 RGB), com folga para o redimensionamento
+    private static final long DECODED_IMAGE_ESTIMATE = 4 * MB;
+
+    private final ThreadPoolTaskExecutor executor;
+    private final Semaphore budget;
+    private final int budgetKb;
+    private final long spillThresholdBytes;
+    private final File tempDir;
+    private final long maxWaitMs;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public ContractRenderPool(@Qualifier("contractRenderExecutor") ThreadPoolTaskExecutor executor,
+                              MeterRegistry meterRegistry,
+                              @Value("${contract.render.memory-budget-mb:256}") int memoryBudgetMb,
+                              @Value("${contract.render.spill-threshold-mb:8}") int spillThresholdMb,
+                              @Value("${contract.render.temp-dir:}") String tempDir,
+                              @Value("${contract.render.max-wait-ms:120000}") long maxWaitMs) {
+        this.executor = executor;
+        this.budgetKb = (int) Math.min(Integer.MAX_VALUE, memoryBudgetMb * MB / KB);
+        this.budget = new Semaphore(budgetKb, true);
+        this.spillThresholdBytes = spillThresholdMb * MB;
+        this.tempDir = tempDir != null && !tempDir.isBlank() ? new File(tempDir) : null;
+        this.maxWaitMs = maxWaitMs;
+
+        Gauge.builder("mmi.contract.render.memory.reserved", budget, b -> (double) (budgetKb - b.availablePermits()) * KB)
+                .description("Memória reservada pelas renderizações de PDF em andamento")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("mmi.contract.render.waiting", waiting, AtomicInteger::get)
+                .description("Renderizações de PDF aguardando orçamento de memória")
+                .register(meterRegistry);
+    }
+
+    // Configuração de memória para cada PDDocument: heap até o limite, o resto em arquivo temporário
+    public MemoryUsageSetting memoryUsage() {
+        MemoryUsageSetting setting = MemoryUsageSetting.setupMixed(spillThresholdBytes);
+        if (tempDir != null) setting.setTempDir(tempDir);
+        return setting;
+    }
+
+    // Estimativa de heap para um contrato com essas fotos: os bytes do arquivo (lidos inteiros pelo
+    // ContractImageEmbedder), a versão preparada (no máximo do mesmo tamanho) e o bitmap reduzido
+    public long estimate(List<MultipartFile> images) {
+        long bytes = BASE_ESTIMATE;
+        if (images != null) {
+            for (MultipartFile image : images) {
+                bytes += 2 * image.getSize() + DECODED_IMAGE_ESTIMATE;
+            }
+        }
+        return bytes;
+    }
+
+    // Reserva a memória (esperando na fila se preciso) e roda a renderização no contractRenderExecutor
+    public <T> T execute(long estimatedBytes, Callable<T> render) throws IOException {
+        try (Reservation ignored = reserve(estimatedBytes)) {
+            Future<T> future = executor.submit(render);
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                future.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IOException("Geração do PDF interrompida", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) throw io;
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw new IOException("Falha na geração do PDF", e.getCause());
+            }
+        }
+    }
+
+    // Reserva sem trocar de thread (o lote já roda no seu próprio pool). Um pedido maior que o
+    // orçamento inteiro não fica preso para sempre: reserva tudo e roda sozinho.
+    // A espera passa pelo ForkJoinPool.managedBlock: num worker do contractBatchPool o pool põe outra
+    // thread no lugar enquanto este espera; fora de um ForkJoinPool é uma espera comum.
+    public Reservation reserve(long estimatedBytes) throws IOException {
+        int permits = (int) Math.max(1, Math.min(budgetKb, (estimatedBytes + KB - 1) / KB));
+        waiting.incrementAndGet();
+        try {
+            // Caminho rápido sem bloquear (timeout zero respeita a fila do semáforo justo)
+            if (!budget.tryAcquire(permits, 0, TimeUnit.MILLISECONDS)) {
+                BudgetWait wait = new BudgetWait(permits);
+                ForkJoinPool.managedBlock(wait);
+                if (!wait.acquired) {
+                    log.warn("Renderização de PDF recusada: {} KB não ficaram disponíveis em {} ms", permits, maxWaitMs);
+                    throw new IOException("Servidor ocupado gerando outros contratos, tente novamente em instantes");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Geração do PDF interrompida", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        return new Reservation(permits);
+    }
+
+    private final class BudgetWait implements ForkJoinPool.ManagedBlocker {
+
+        private final int permits;
+        private boolean done;
+        private boolean acquired;
+
+        private BudgetWait(int permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            acquired = budget.tryAcquire(permits, maxWaitMs, TimeUnit.MILLISECONDS);
+            done = true;
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    public final class Reservation implements AutoCloseable {
+
+        private int permits;
+
+        private Reservation(int permits) {
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() {
+            if (permits > 0) {
+                budget.release(permits);
+                permits = 0;
+            }
+        }
+    }
+}
@@ -2,8 +2,10 @@ package com.mmi.api.services;
 
 import com.mmi.infra.ClauseRepository;
 import com.mmi.infra.ContractRepository;
+import com.mmi.infra.storage.BlobStorage;
 import com.mmi.models.Clause;
 import com.mmi.models.Contract;
+import com.mmi.models.ContractStatus;
 import com.mmi.models.Signature;
 import com.mmi.models.dto.ClauseDTO;
 import com.mmi.models.dto.CreateContractRequest;
@@ -13,21 +15,34 @@ import org.apache.pdfbox.pdmodel.PDPage;
 import org.apache.pdfbox.pdmodel.PDPageContentStream;
 import org.apache.pdfbox.pdmodel.common.PDRectangle;
 import org.apache.pdfbox.pdmodel.font.PDFont;
-import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
 import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.FileSystemUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class ContractService {
@@ -36,26 +51,90 @@ public class ContractService {
     private final ContractRepository contractRepository;
     private final ClicksignService clicksignService;
     private final CloudinaryService cloudinaryService;
+    private final ContractLetterhead letterhead;
+    private final BlobStorage blobStorage;
+    private final ContractLayout layout;
+    private final ContractImageEmbedder imageEmbedder;
+    private final ContractRenderPool renderPool;
+    private final ContractSignaturePage signaturePage;
+    private final ContractPdfCache pdfCache;
+    private final ClauseLayoutCache clauseLayoutCache;
 
-    // Definição das fontes
-    private static final PDFont FONT_NORMAL = PDType1Font.TIMES_ROMAN;
-    private static final PDFont FONT_BOLD = PDType1Font.TIMES_BOLD;
-    private static final float FONT_SIZE = 12;
+    // Reenvios ao Clicksign em andamento (dois cliques não podem criar dois documentos)
+    private final Set<UUID> resending = ConcurrentHashMap.newKeySet();
+
+    // Tamanho do texto das cláusulas (as fontes vêm do ContractFonts, por documento)
+    private static final float FONT_SIZE = ContractLayout.FONT_SIZE;
+
+    // Margens laterais e largura útil do texto na página A4
+    static final float MARGIN = 50;
+    static final float TEXT_WIDTH = PDRectangle.A4.getWidth() - 2 * MARGIN;
+
+    // Versão do layout dos PDFs, parte da chave do ContractPdfCache: incrementar sempre que a
+    // renderização mudar (fontes, margens, papel timbrado...) para não servir PDFs no formato antigo
+    private static final String RENDER_VERSION = "contract-pdf-3";
 
     public ContractService(ClauseRepository clauseRepository,
                            ContractRepository contractRepository,
                            ClicksignService clicksignService,
-                           CloudinaryService cloudinaryService) {
+                           CloudinaryService cloudinaryService,
+                           ContractLetterhead letterhead,
+                           BlobStorage blobStorage,
+                           ContractLayout layout,
+                           ContractImageEmbedder imageEmbedder,
+                           ContractRenderPool renderPool,
+                           ContractSignaturePage signaturePage,
+                           ContractPdfCache pdfCache,
+                           ClauseLayoutCache clauseLayoutCache) {
         this.clauseRepository = clauseRepository;
         this.contractRepository = contractRepository;
         this.clicksignService = clicksignService;
         this.cloudinaryService = cloudinaryService;
+        this.letterhead = letterhead;
+        this.blobStorage = blobStorage;
+        this.layout = layout;
+        this.imageEmbedder = imageEmbedder;
+        this.renderPool = renderPool;
+        this.signaturePage = signaturePage;
+        this.pdfCache = pdfCache;
+        this.clauseLayoutCache = clauseLayoutCache;
     }
 
     public List<Clause> findAllClauses() { return clauseRepository.findAll(); }
-    public Clause createClause(ClauseDTO clauseDTO) { Clause c = new Clause(); c.setTitle(clauseDTO.getTitle()); c.setContent(clauseDTO.getContent()); return clauseRepository.save(c); }
-    public Clause updateClause(Long id, ClauseDTO clauseDTO) { Clause c = clauseRepository.findById(id).orElseThrow(); c.setTitle(clauseDTO.getTitle()); c.setContent(clauseDTO.getContent()); return clauseRepository.save(c); }
-    public void deleteClause(Long id) { clauseRepository.deleteById(id); }
+    public Clause createClause(ClauseDTO clauseDTO) { Clause c = new Clause(); c.setTitle(clauseDTO.getTitle()); c.setContent(clauseDTO.getContent()); c.setVersion(1L); return clauseRepository.save(c); }
+
+    @Transactional
+    public Clause updateClause(Long id, ClauseDTO clauseDTO) {
+        Clause c = clauseRepository.findByIdForUpdate(id).orElseThrow();
+        c.setTitle(clauseDTO.getTitle());
+        c.setContent(clauseDTO.getContent());
+        c.setVersion((c.getVersion() != null ? c.getVersion() : 0) + 1);
+        Clause saved = clauseRepository.save(c);
+        clauseLayoutCache.invalidate(id);
+        return saved;
+    }
+
+    public void deleteClause(Long id) { clauseRepository.deleteById(id); clauseLayoutCache.invalidate(id); }
+
+    // Cláusulas do contrato: as da biblioteca (clauseIds, na ordem pedida) seguidas das enviadas por
+    // extenso. Id inexistente -> IllegalArgumentException.
+    public List<ClauseDTO> resolveClauses(CreateContractRequest request) {
+        List<ClauseDTO> clauses = new ArrayList<>();
+        List<Long> clauseIds = request.getClauseIds();
+        if (clauseIds != null && !clauseIds.isEmpty()) {
+            Map<Long, Clause> byId = clauseRepository.findAllById(clauseIds).stream()
+                    .collect(Collectors.toMap(Clause::getId, Function.identity()));
+            for (Long id : clauseIds) {
+                Clause clause = byId.get(id);
+                if (clause == null) {
+                    throw new IllegalArgumentException("Cláusula " + id + " não encontrada");
+                }
+                clauses.add(new ClauseLayoutCache.LibraryClause(clause));
+            }
+        }
+        if (request.getClauses() != null) clauses.addAll(request.getClauses());
+        return clauses;
+    }
     public Contract getContractByUuid(UUID uuid) { return contractRepository.findByUuid(uuid).orElseThrow(); }
     public List<Contract> findAllContracts() { return contractRepository.findAll(); }
 
@@ -69,64 +148,185 @@ public class ContractService {
     public void deleteContract(UUID uuid) {
         Contract contract = getContractByUuid(uuid);
         contractRepository.delete(contract);
+        contractRepository.flush();
+        deletePdfAfterCommit(contract.getPdfHash(), contract.getPdfPath());
+        deletePdfAfterCommit(contract.getSignedPdfHash(), contract.getSignedPdfPath());
+    }
+
+    // Remove o arquivo só depois do commit e se nenhum outro contrato aponta para o mesmo conteúdo
+    private void deletePdfAfterCommit(String pdfHash, String pdfPath) {
+        if (pdfPath == null || contractRepository.existsByPdfHash(pdfHash)
+                || contractRepository.existsBySignedPdfHash(pdfHash)) return;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                try {
+                    blobStorage.delete(pdfPath);
+                } catch (IOException e) {
+                    System.err.println("Falha ao remover PDF " + pdfPath + ": " + e.getMessage());
+                }
+            }
+        });
     }
 
     // Mantido para compatibilidade, se necessário
-    @Transactional
     public Contract createContractForSigning(CreateContractRequest request) throws IOException {
         return createContractWithImages(request, null);
     }
 
-    // --- NOVO MÉTODO PRINCIPAL DE CRIAÇÃO COM IMAGENS ---
-    @Transactional
+    // Criação síncrona, etapa por etapa. O fluxo da API passa pelo ContractJobService, que
+    // executa as mesmas etapas em background com retentativa.
     public Contract createContractWithImages(CreateContractRequest request, List<MultipartFile> files) throws IOException {
-        Contract contract = new Contract();
-        contract.setTitle(request.getTitle() != null && !request.getTitle().isEmpty() ? request.getTitle() : "Contrato Sem Título");
-
-        // 1. Upload das imagens para o Cloudinary (se houver) e salvar URLs
-        if (files != null && !files.isEmpty()) {
-            List<String> uploadedUrls = new ArrayList<>();
-            // Define uma pasta única para o contrato
-            String folder = "mmi/contracts/" + contract.getUuid();
-
-            for (MultipartFile file : files) {
-                String url = cloudinaryService.uploadFile(file, folder);
-                uploadedUrls.add(url);
-            }
-            contract.setImageUrls(uploadedUrls);
+        UUID uuid = UUID.randomUUID();
+        List<String> imageUrls = uploadImages(uuid, files);
+        Path workDir = Files.createTempDirectory("contract-");
+        try {
+            Path pdf = generateContractPDF(request.getTitle(), resolveClauses(request), files, workDir);
+            saveGeneratedContract(uuid, request.getTitle(), imageUrls, pdf);
+            return sendToClicksign(uuid, pdf);
+        } finally {
+            FileSystemUtils.deleteRecursively(workDir);
         }
+    }
 
-        // 2. Gerar PDF (incluindo as imagens anexadas no final)
-        byte[] pdfBytes = generateContractPDF(request.getTitle(), request.getClauses(), files);
-        contract.setPdfData(pdfBytes);
+    // Etapa 1: upload das imagens para o Cloudinary, numa pasta única do contrato
+    public List<String> uploadImages(UUID uuid, List<MultipartFile> files) throws IOException {
+        List<String> uploadedUrls = new ArrayList<>();
+        if (files == null || files.isEmpty()) return uploadedUrls;
 
-        contract = contractRepository.save(contract);
+        String folder = "mmi/contracts/" + uuid;
+        for (MultipartFile file : files) {
+            uploadedUrls.add(cloudinaryService.uploadFile(file, folder));
+        }
+        return uploadedUrls;
+    }
 
-        // 3. Enviar para Clicksign
-        String safeFileName = contract.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + "_" + contract.getUuid() + ".pdf";
-        String clicksignDocKey = clicksignService.uploadDocument(pdfBytes, safeFileName);
-        contract.setExternalKey(clicksignDocKey);
+    // Etapa 3: grava o PDF no BlobStorage e o contrato no banco (idempotente para o mesmo uuid)
+    @Transactional
+    public Contract saveGeneratedContract(UUID uuid, String title, List<String> imageUrls, Path pdf) throws IOException {
+        Contract contract = contractRepository.findByUuid(uuid).orElseGet(Contract::new);
+        contract.setUuid(uuid);
+        contract.setTitle(title != null && !title.isEmpty() ? title : "Contrato Sem Título");
+        contract.setImageUrls(new ArrayList<>(imageUrls));
+        try (InputStream in = Files.newInputStream(pdf)) {
+            contract.setPdfBlob(blobStorage.store(in, "pdf"));
+        }
+        return contractRepository.save(contract);
+    }
 
+    // Etapa 4: envia ao Clicksign sem transação aberta (chamada HTTP lenta) e grava só a chave.
+    // O PDF vai direto do arquivo para a conexão (Base64 em streaming no ClicksignService).
+    public Contract sendToClicksign(UUID uuid, Path pdf) throws IOException {
+        Contract contract = getContractByUuid(uuid);
+        if (contract.getExternalKey() != null) return contract;
+
+        String safeFileName = contract.getTitle().replaceAll("[^a-zA-Z0-9.-]", "_") + "_" + contract.getUuid() + ".pdf";
+        String externalKey;
+        try {
+            externalKey = clicksignService.uploadDocument(pdf, safeFileName);
+        } catch (RuntimeException e) {
+            // O contrato já está gravado: fica visível como FALHA_ENVIO até o reenvio (resendToClicksign)
+            contract.setStatus(ContractStatus.FALHA_ENVIO);
+            contractRepository.save(contract);
+            throw e;
+        }
+        contract.setExternalKey(externalKey);
+        contract.setStatus(ContractStatus.AGUARDANDO_ASSINATURAS);
         return contractRepository.save(contract);
     }
 
-    @Transactional
-    public Signature addSignerToContract(UUID uuid, SignatureDTO signatureDTO) {
+    // Reenvia ao Clicksign um contrato em FALHA_ENVIO, a partir do PDF armazenado. Lança
+    // IllegalStateException se o contrato não estiver esperando reenvio ou já houver um em andamento.
+    public Contract resendToClicksign(UUID uuid) throws IOException {
         Contract contract = getContractByUuid(uuid);
-        if (contract.getExternalKey() == null) throw new IllegalStateException("Sem externalKey");
-        Signature newSignature = new Signature();
-        newSignature.setSignerName(signatureDTO.getSignerName());
-        newSignature.setEmail(signatureDTO.getEmail());
-        newSignature.setCpf(signatureDTO.getCpf());
-        newSignature.setRole(signatureDTO.getRole());
-        newSignature.setContract(contract);
+        if (contract.getExternalKey() != null) return contract;
+        if (contract.getStatus() != ContractStatus.FALHA_ENVIO || contract.getPdfPath() == null) {
+            throw new IllegalStateException("Contrato não está aguardando reenvio ao Clicksign");
+        }
+        if (!resending.add(uuid)) {
+            throw new IllegalStateException("Reenvio ao Clicksign já em andamento");
+        }
+        Path copy = null;
         try {
-            String signerKey = clicksignService.createSigner(signatureDTO);
-            clicksignService.addSignerToDocument(contract.getExternalKey(), signerKey, signatureDTO.getRole());
-        } catch (Exception e) { throw new RuntimeException(e); }
-        contract.getSignatures().add(newSignature);
-        contractRepository.save(contract);
-        return newSignature;
+            Path pdf = blobStorage.localFile(contract.getPdfPath()).orElse(null);
+            if (pdf == null) {
+                // Storage remoto: o upload lê o PDF de um arquivo
+                copy = Files.createTempFile("contrato-reenvio-", ".pdf");
+                try (InputStream in = blobStorage.load(contract.getPdfPath()).getInputStream()) {
+                    Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+                pdf = copy;
+            }
+            return sendToClicksign(uuid, pdf);
+        } finally {
+            resending.remove(uuid);
+            if (copy != null) Files.deleteIfExists(copy);
+        }
+    }
+
+    // Registra localmente signatários já vinculados ao documento no Clicksign (ContractSignerService):
+    // todos numa transação e numa única atualização do PDF armazenado
+    @Transactional
+    public List<Signature> recordSigners(UUID uuid, List<SignatureDTO> signers) {
+        // Travado: dois registros ao mesmo tempo não podem partir da mesma versão do PDF
+        Contract contract = contractRepository.findByUuidForUpdate(uuid).orElseThrow();
+        Instant now = Instant.now();
+        List<Signature> added = new ArrayList<>(signers.size());
+        for (SignatureDTO signatureDTO : signers) {
+            Signature newSignature = new Signature();
+            newSignature.setSignerName(signatureDTO.getSignerName());
+            newSignature.setEmail(signatureDTO.getEmail());
+            newSignature.setCpf(signatureDTO.getCpf());
+            newSignature.setRole(signatureDTO.getRole());
+            newSignature.setCreatedAt(now);
+            newSignature.setContract(contract);
+            contract.getSignatures().add(newSignature);
+            added.add(newSignature);
+        }
+        try {
+            appendSignaturePage(contract, added);
+        } catch (IOException | RuntimeException e) {
+            // Os signatários já estão no Clicksign; o registro segue valendo mesmo sem a página no PDF
+            System.err.println("Erro ao registrar assinaturas no PDF do contrato " + uuid + ": " + e.getMessage());
+        }
+        // O contrato está gerenciado: o flush grava os signatários por cascata nas próprias instâncias
+        // (um save() faria merge e persistiria cópias, deixando as devolvidas sem id)
+        contractRepository.flush();
+        return added;
+    }
+
+    // Acrescenta os signatários à página de assinaturas do PDF armazenado (salvamento incremental,
+    // sem re-renderizar as cláusulas) e aponta o contrato para a nova versão
+    private void appendSignaturePage(Contract contract, List<Signature> signers) throws IOException {
+        String previousHash = contract.getPdfHash();
+        String previousPath = contract.getPdfPath();
+        if (previousPath == null) return;
+
+        Path source = blobStorage.localFile(previousPath).orElse(null);
+        Path copy = null;
+        Path updated = Files.createTempFile("contrato-assinatura-", ".pdf");
+        try {
+            if (source == null) {
+                // Storage remoto: o PDFBox precisa de acesso aleatório ao arquivo original
+                copy = Files.createTempFile("contrato-original-", ".pdf");
+                try (InputStream in = blobStorage.load(previousPath).getInputStream()) {
+                    Files.copy(in, copy, StandardCopyOption.REPLACE_EXISTING);
+                }
+                source = copy;
+            }
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(updated))) {
+                signaturePage.append(source.toFile(), renderPool.memoryUsage(), contract, signers, out);
+            }
+            try (InputStream in = Files.newInputStream(updated)) {
+                contract.setPdfBlob(blobStorage.store(in, "pdf"));
+            }
+        } finally {
+            Files.deleteIfExists(updated);
+            if (copy != null) Files.deleteIfExists(copy);
+        }
+
+        contractRepository.flush();
+        deletePdfAfterCommit(previousHash, previousPath);
     }
 
     // --- LÓGICA DE GERAÇÃO DE PDF OTIMIZADA ---
@@ -136,21 +336,79 @@ public class ContractService {
         return generateContractPDF(contractTitle, clauses, null);
     }
 
+    // PDF inteiro em memória, fora do orçamento do ContractRenderPool: só para documentos pequenos
+    // (benchmarks, testes). O fluxo da API usa a versão que grava em arquivo.
     public byte[] generateContractPDF(String contractTitle, List<ClauseDTO> clauses, List<MultipartFile> attachedImages) throws IOException {
-        try (PDDocument document = new PDDocument()) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderContractPDF(contractTitle, layoutClauses(clauses), attachedImages, out);
+        return out.toByteArray();
+    }
+
+    // Gera o PDF num arquivo temporário em dir, dentro do orçamento de memória do ContractRenderPool
+    // (espera na fila se outros contratos estiverem ocupando a memória). Quem chama apaga o arquivo.
+    // Entradas idênticas a uma geração recente saem do ContractPdfCache, sem renderizar.
+    public Path generateContractPDF(String contractTitle, List<ClauseDTO> clauses, List<MultipartFile> attachedImages, Path dir) throws IOException {
+        if (!pdfCache.isEnabled()) {
+            return renderToFile(contractTitle, clauses, attachedImages, dir);
+        }
+        String key = pdfCache.key(contractTitle, clauses, attachedImages, RENDER_VERSION + ";fonts=" + (layout.fonts().isEmbedded() ? "ttf" : "type1") + ";" + imageEmbedder.settings());
+        Optional<Path> cached = pdfCache.copyTo(key, dir);
+        if (cached.isPresent()) return cached.get();
+
+        Path pdf = renderToFile(contractTitle, clauses, attachedImages, dir);
+        pdfCache.put(key, pdf);
+        return pdf;
+    }
+
+    private Path renderToFile(String contractTitle, List<ClauseDTO> clauses, List<MultipartFile> attachedImages, Path dir) throws IOException {
+        return renderPool.execute(renderPool.estimate(attachedImages), () -> {
+            Path file = Files.createTempFile(dir, "contrato-", ".pdf");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+                renderContractPDF(contractTitle, layoutClauses(clauses), attachedImages, out);
+                return file;
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(file);
+                throw e;
+            }
+        });
+    }
 
-            PDImageXObject bgStandard = loadImage(document, "images/papel_timbrado.jpg");
+    private List<ContractLayout.LaidOutClause> layoutClauses(List<ClauseDTO> clauses) throws IOException {
+        List<ContractLayout.LaidOutClause> laidOut = new ArrayList<>(clauses.size());
+        for (ClauseDTO clause : clauses) {
+            if (clause instanceof ClauseLayoutCache.LibraryClause library) {
+                // Texto da biblioteca: diagramado uma vez por versão
+                laidOut.add(clauseLayoutCache.get(library));
+            } else {
+                laidOut.add(new ContractLayout.LaidOutClause(clause.getTitle(), layout.layoutContent(clause.getContent(), TEXT_WIDTH)));
+            }
+        }
+        return laidOut;
+    }
+
+    // Monta o PDF a partir das cláusulas já diagramadas (o lote reaproveita o texto fixo entre contratos)
+    public byte[] renderContractPDF(String contractTitle, List<ContractLayout.LaidOutClause> clauses, List<MultipartFile> attachedImages) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        renderContractPDF(contractTitle, clauses, attachedImages, out);
+        return out.toByteArray();
+    }
 
-            PDPage page = new PDPage(PDRectangle.A4);
-            document.addPage(page);
-            drawBackground(document, page, bgStandard);
+    // Escreve o PDF direto em out. Acima de contract.render.spill-threshold-mb o PDFBox guarda
+    // o conteúdo do documento em arquivos temporários em vez do heap.
+    public void renderContractPDF(String contractTitle, List<ContractLayout.LaidOutClause> clauses, List<MultipartFile> attachedImages,
+                                  OutputStream out) throws IOException {
+        try (PDDocument document = new PDDocument(renderPool.memoryUsage())) {
+            ContractFonts.DocumentFonts fonts = layout.fonts().forDocument(document);
 
-            PDPageContentStream content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
+            // Papel timbrado: um único Form XObject compartilhado por todas as páginas
+            PDFormXObject background = letterhead.createForm(document, PDRectangle.A4);
 
-            float margin = 50;
-            float pageWidth = page.getMediaBox().getWidth();
-            float pageHeight = page.getMediaBox().getHeight();
-            float effectiveWidth = pageWidth - 2 * margin;
+            PDPageContentStream content = startPage(document, background);
+
+            float margin = MARGIN;
+            float pageWidth = PDRectangle.A4.getWidth();
+            float pageHeight = PDRectangle.A4.getHeight();
+            float effectiveWidth = TEXT_WIDTH;
 
             // Rodapé protegido para não cobrir informações do papel timbrado
             float footerHeight = 120;
@@ -161,95 +419,57 @@ public class ContractService {
 
             // 1. Título do Contrato
             content.beginText();
-            content.setFont(FONT_BOLD, 18);
-            String titleText = (contractTitle != null && !contractTitle.trim().isEmpty())
+            content.setFont(fonts.bold(), 18);
+            String titleText = layout.displayable((contractTitle != null && !contractTitle.trim().isEmpty())
                     ? contractTitle.toUpperCase()
-                    : "CONTRATO DE PRESTAÇÃO DE SERVIÇOS";
+                    : "CONTRATO DE PRESTAÇÃO DE SERVIÇOS", true);
 
-            float titleWidth = FONT_BOLD.getStringWidth(titleText) / 1000 * 18;
+            float titleWidth = layout.width(true, titleText, 18);
             content.newLineAtOffset((pageWidth - titleWidth) / 2, yPosition);
             content.showText(titleText);
             content.endText();
             yPosition -= 40;
 
-            for (ClauseDTO clause : clauses) {
+            for (ContractLayout.LaidOutClause clause : clauses) {
                 // 2. Título da Cláusula
                 content.beginText();
-                content.setFont(FONT_BOLD, 14);
+                content.setFont(fonts.bold(), 14);
                 content.newLineAtOffset(margin, yPosition);
-                content.showText(clause.getTitle());
+                content.showText(layout.displayable(clause.title(), true));
                 content.endText();
                 yPosition -= 20;
 
-                // 3. Processamento do Conteúdo (PARÁGRAFO POR PARÁGRAFO)
-                String rawContent = clause.getContent() != null ? clause.getContent() : "";
-
-                // Divide por quebras de linha explicitamente para respeitar parágrafos
-                String[] paragraphs = rawContent.split("\\r?\\n");
-
-                for (String paragraph : paragraphs) {
+                // 3. Conteúdo já diagramado, parágrafo por parágrafo
+                for (ContractLayout.Paragraph paragraph : clause.paragraphs()) {
                     // Se o parágrafo for vazio (Enter duplo), apenas pula linha
-                    if (paragraph.trim().isEmpty()) {
+                    if (paragraph.blank()) {
                         yPosition -= lineSpacing;
                         // Verifica quebra de página se necessário
                         if (yPosition < footerHeight) {
                             content.close();
-                            page = new PDPage(PDRectangle.A4);
-                            document.addPage(page);
-                            drawBackground(document, page, bgStandard);
-                            content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
+                            content = startPage(document, background);
                             yPosition = yStart;
                         }
                         continue;
                     }
 
-                    // Remove caracteres inválidos APENAS dentro do parágrafo (mantém o fluxo)
-                    String safeParagraph = paragraph.replaceAll("[\\t\\x0B\\f\\r]", " ");
-
-                    List<Word> words = parseContentToWords(safeParagraph);
-                    List<Word> currentLine = new ArrayList<>();
-                    float currentLineWidth = 0;
-
-                    for (Word word : words) {
-                        float wordWidth = word.getWidth();
-                        float spaceWidth = (word.isBold ? FONT_BOLD : FONT_NORMAL).getStringWidth(" ") / 1000 * FONT_SIZE;
-
-                        if (currentLineWidth + wordWidth > effectiveWidth) {
-                            // Linha cheia -> Imprime JUSTIFICADO
-                            printLine(content, currentLine, margin, yPosition, effectiveWidth, true);
-
-                            currentLine.clear();
-                            currentLineWidth = 0;
-                            yPosition -= lineSpacing;
-
-                            // Verifica quebra de página
-                            if (yPosition < footerHeight) {
-                                content.close();
-                                page = new PDPage(PDRectangle.A4);
-                                document.addPage(page);
-                                drawBackground(document, page, bgStandard);
-                                content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
-                                yPosition = yStart;
-                            }
-                        }
-
-                        currentLine.add(word);
-                        currentLineWidth += wordWidth + spaceWidth;
-                    }
-
-                    // Fim do Parágrafo: A última linha deve ser ALINHADA À ESQUERDA (false)
-                    if (!currentLine.isEmpty()) {
-                        printLine(content, currentLine, margin, yPosition, effectiveWidth, false);
+                    // Linhas cheias vêm justificadas; a última do parágrafo, alinhada à esquerda
+                    for (ContractLayout.Line line : paragraph.lines()) {
+                        printLine(content, fonts, line, margin, yPosition);
                         yPosition -= lineSpacing;
+
+                        // Verifica quebra de página
+                        if (yPosition < footerHeight) {
+                            content.close();
+                            content = startPage(document, background);
+                            yPosition = yStart;
+                        }
                     }
 
                     // Verifica quebra de página após parágrafo
                     if (yPosition < footerHeight) {
                         content.close();
-                        page = new PDPage(PDRectangle.A4);
-                        document.addPage(page);
-                        drawBackground(document, page, bgStandard);
-                        content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
+                        content = startPage(document, background);
                         yPosition = yStart;
                     }
                 }
@@ -261,7 +481,6 @@ public class ContractService {
 
             // --- 4. ANEXAR IMAGENS COMPACTAS (2 por página) ---
             if (attachedImages != null && !attachedImages.isEmpty()) {
-                PDPage imgPage = null;
                 PDPageContentStream imgContent = null;
 
                 // Dimensões úteis para layout
@@ -271,30 +490,31 @@ public class ContractService {
                 float gap = 20; // Espaço entre as duas fotos
                 float maxSlotHeight = (availableHeightTotal - gap) / 2;
 
-                for (int i = 0; i < attachedImages.size(); i++) {
-                    MultipartFile imgFile = attachedImages.get(i);
+                // Decodificação e redução em paralelo; aqui só embute e desenha, na ordem dos arquivos
+                List<Future<ContractImageEmbedder.PreparedImage>> prepared =
+                        imageEmbedder.prepareAll(attachedImages, effectiveWidth, maxSlotHeight);
+                int placed = 0;
+
+                for (Future<ContractImageEmbedder.PreparedImage> future : prepared) {
                     try {
-                        PDImageXObject pdImage = PDImageXObject.createFromByteArray(document, imgFile.getBytes(), imgFile.getOriginalFilename());
+                        ContractImageEmbedder.PreparedImage image = future.get();
+                        PDImageXObject pdImage = image.embed(document);
 
-                        // Se o índice for par (0, 2, 4...), cria uma nova página e abre o stream
-                        if (i % 2 == 0) {
+                        // Imagens pares (0, 2, 4...) abrem uma nova página
+                        if (placed % 2 == 0) {
                             if (imgContent != null) imgContent.close();
 
-                            imgPage = new PDPage(PDRectangle.A4);
-                            document.addPage(imgPage);
-
-                            // Mantém o papel timbrado de fundo
-                            drawBackground(document, imgPage, bgStandard);
-
-                            imgContent = new PDPageContentStream(document, imgPage, PDPageContentStream.AppendMode.APPEND, true, true);
+                            // Nova página, mantendo o papel timbrado de fundo
+                            imgContent = startPage(document, background);
                         }
 
                         // Define se é o slot superior ou inferior
-                        boolean isTopSlot = (i % 2 == 0);
+                        boolean isTopSlot = (placed % 2 == 0);
+                        placed++;
 
-                        // Lógica de Redimensionamento (Contain)
-                        float imgW = pdImage.getWidth();
-                        float imgH = pdImage.getHeight();
+                        // Lógica de Redimensionamento (Contain), sobre as dimensões originais da foto
+                        float imgW = image.width();
+                        float imgH = image.height();
                         float scale = 1.0f;
 
                         // 1. Ajusta pela largura
@@ -325,10 +545,11 @@ public class ContractService {
                             drawY = slotCenterY - (drawH / 2);
                         }
 
-                        if (imgContent != null) {
-                            imgContent.drawImage(pdImage, drawX, drawY, drawW, drawH);
-                        }
+                        imgContent.drawImage(pdImage, drawX, drawY, drawW, drawH);
 
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Geração do PDF interrompida", e);
                     } catch (Exception e) {
                         System.err.println("Erro ao anexar imagem ao PDF: " + e.getMessage());
                         // Continua para a próxima imagem mesmo se uma falhar
@@ -338,79 +559,56 @@ public class ContractService {
                 if (imgContent != null) imgContent.close();
             }
 
-            addPageNumbers(document, margin, footerHeight);
+            addPageNumbers(document, fonts, margin, footerHeight);
 
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            document.save(baos);
-            return baos.toByteArray();
+            document.save(out);
         }
     }
 
-    private void printLine(PDPageContentStream content, List<Word> words, float x, float y, float maxWidth, boolean justify) throws IOException {
+    // A justificação vai como ajuste numérico no TJ depois de cada espaço. O operador Tw só afeta o
+    // código de byte 32, e na fonte embutida (Type0, Identity-H, códigos de 2 bytes) seria ignorado.
+    private void printLine(PDPageContentStream content, ContractFonts.DocumentFonts fonts, ContractLayout.Line line,
+                           float x, float y) throws IOException {
+        List<ContractLayout.Word> words = line.words();
         if (words.isEmpty()) return;
 
+        // Unidades do TJ: milésimos do tamanho da fonte; negativo avança para a direita
+        Float extraSpace = line.wordSpacing() != 0 ? -line.wordSpacing() * 1000 / FONT_SIZE : null;
+
         content.beginText();
         content.newLineAtOffset(x, y);
 
-        float totalWordWidth = 0;
-        for (Word w : words) totalWordWidth += w.getWidth();
-
-        float extraSpace = 0;
-        // Só justifica se tiver mais de uma palavra e a flag estiver true
-        if (justify && words.size() > 1) {
-            float totalStandardSpacesWidth = 0;
-            for (int i = 0; i < words.size() - 1; i++) {
-                PDFont font = words.get(i).isBold ? FONT_BOLD : FONT_NORMAL;
-                totalStandardSpacesWidth += font.getStringWidth(" ") / 1000 * FONT_SIZE;
-            }
-            float availableSpace = maxWidth - totalWordWidth - totalStandardSpacesWidth;
-            extraSpace = availableSpace / (words.size() - 1);
-        }
-
-        if (justify) {
-            content.setWordSpacing(extraSpace);
-        } else {
-            content.setWordSpacing(0);
-        }
-
+        // Palavras seguidas na mesma fonte vão num único TJ
+        List<Object> run = new ArrayList<>();
+        PDFont runFont = null;
         for (int i = 0; i < words.size(); i++) {
-            Word w = words.get(i);
-            content.setFont(w.isBold ? FONT_BOLD : FONT_NORMAL, FONT_SIZE);
-            content.showText(w.text);
-            if (i < words.size() - 1) {
-                content.showText(" ");
-            }
-        }
-        content.endText();
-    }
-
-    private List<Word> parseContentToWords(String text) throws IOException {
-        List<Word> words = new ArrayList<>();
-        Pattern pattern = Pattern.compile("\\*([^*]+)\\*|([^*\\s]+)");
-        Matcher matcher = pattern.matcher(text);
-
-        while (matcher.find()) {
-            if (matcher.group(1) != null) {
-                String boldSection = matcher.group(1);
-                for (String subWord : boldSection.split("\\s+")) {
-                    if (!subWord.isEmpty()) words.add(new Word(subWord, true));
+            ContractLayout.Word w = words.get(i);
+            PDFont wordFont = fonts.font(w.bold());
+            if (wordFont != runFont) {
+                if (!run.isEmpty()) {
+                    content.showTextWithPositioning(run.toArray());
+                    run.clear();
                 }
-            } else {
-                words.add(new Word(matcher.group(0), false));
+                runFont = wordFont;
+                content.setFont(runFont, FONT_SIZE);
             }
+            boolean last = i == words.size() - 1;
+            run.add(last ? w.text() : w.text() + ' ');
+            if (!last && extraSpace != null) run.add(extraSpace);
         }
-        return words;
+        content.showTextWithPositioning(run.toArray());
+        content.endText();
     }
 
-    private void addPageNumbers(PDDocument document, float margin, float footerHeight) throws IOException {
+    private void addPageNumbers(PDDocument document, ContractFonts.DocumentFonts fonts, float margin, float footerHeight) throws IOException {
         int totalPages = document.getNumberOfPages();
         for (int i = 0; i < totalPages; i++) {
             PDPage currentPage = document.getPage(i);
             try (PDPageContentStream stream = new PDPageContentStream(document, currentPage, PDPageContentStream.AppendMode.APPEND, true, true)) {
                 String pageText = String.format("Página %d de %d", i + 1, totalPages);
                 stream.beginText();
-                stream.setFont(FONT_NORMAL, 10);
-                float textWidth = FONT_NORMAL.getStringWidth(pageText) / 1000 * 10;
+                stream.setFont(fonts.normal(), 10);
+                float textWidth = layout.width(false, pageText, 10);
 
                 float safeY = footerHeight - 50;
                 if (safeY < 30) safeY = 30;
@@ -422,35 +620,14 @@ public class ContractService {
         }
     }
 
-    private void drawBackground(PDDocument doc, PDPage page, PDImageXObject image) throws IOException {
-        if (image == null) return;
-        try (PDPageContentStream bgStream = new PDPageContentStream(doc, page, PDPageContentStream.AppendMode.PREPEND, true, true)) {
-            bgStream.drawImage(image, 0, 0, page.getMediaBox().getWidth(), page.getMediaBox().getHeight());
+    // Cria uma página A4 já com o papel timbrado desenhado e devolve o stream aberto para o conteúdo
+    private PDPageContentStream startPage(PDDocument document, PDFormXObject background) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        PDPageContentStream content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, true);
+        if (background != null) {
+            content.drawForm(background);
         }
+        return content;
     }
-
-    private PDImageXObject loadImage(PDDocument doc, String path) {
-        try {
-            ClassPathResource resource = new ClassPathResource(path);
-            InputStream inputStream = resource.getInputStream();
-            return PDImageXObject.createFromByteArray(doc, inputStream.readAllBytes(), path);
-        } catch (IOException e) {
-            return null;
-        }
-    }
-
-    private static class Word {
-        String text;
-        boolean isBold;
-        float width;
-
-        Word(String text, boolean isBold) throws IOException {
-            this.text = text;
-            this.isBold = isBold;
-            PDFont font = isBold ? FONT_BOLD : FONT_NORMAL;
-            this.width = font.getStringWidth(text) / 1000 * FONT_SIZE;
-        }
-
-        float getWidth() { return width; }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,224 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Contract;
+import com.mmi.models.Signature;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+// Página de assinaturas do contrato (images/assinatura_timbrado.jpg), preenchida à medida que os
+// signatários entram. Cada registro (de um ou vários signatários) é gravado com salvamento
+// incremental do PDFBox: o PDF existente é copiado byte a byte e só a página nova (ou o conteúdo
+// acrescentado a ela) vai no fim do arquivo, então o custo não depende do tamanho do contrato e
+// as cláusulas nunca são re-renderizadas.
+//
+// Quem tem papel com espaço próprio no modelo (locador, locatários, testemunhas) também tem o nome
+// escrito ali; todos entram no registro abaixo, com função, CPF, e-mail e data/hora. O que já foi
+// ocupado em cada página fica anotado no próprio dicionário da página.
+@Component
+public class ContractSignaturePage {
+
+    private static final String RESOURCE = "images/assinatura_timbrado.jpg";
+
+    private static final COSName USED_SLOTS = COSName.getPDFName("MMISignatureSlots");
+    private static final COSName USED_ROWS = COSName.getPDFName("MMISignatureRows");
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss", Locale.ROOT)
+            .withZone(ZoneId.of("America/Sao_Paulo"));
+
+    // O modelo tem 1242x1755 px; as posições abaixo estão em pixels do modelo
+    private static final float PX = PDRectangle.A4.getWidth() / 1242f;
+
+    // Registro dos signatários: entre o bloco das testemunhas e o rodapé do modelo
+    private static final float REGISTER_X = 75 * PX;
+    private static final float REGISTER_TOP = PDRectangle.A4.getHeight() - 815 * PX;
+    private static final float REGISTER_BOTTOM = PDRectangle.A4.getHeight() - 1530 * PX;
+    private static final float ROW_HEIGHT = 12;
+    private static final int ROWS_PER_SIGNER = 2;
+    // Descontada a linha do título do registro
+    private static final int MAX_ROWS = (int) ((REGISTER_TOP - REGISTER_BOTTOM) / ROW_HEIGHT) - 1;
+
+    // Espaços nominais do modelo: nome (e CPF, no caso das testemunhas) ao lado do rótulo impresso
+    private enum Slot {
+        LOCADOR(240, 210, 0, 0),
+        LOCATARIO_1(240, 358, 0, 0),
+        LOCATARIO_2(240, 507, 0, 0),
+        TESTEMUNHA_1(160, 648, 125, 754),
+        TESTEMUNHA_2(745, 648, 720, 754);
+
+        final float nameX;
+        final float nameY;
+        final float documentX;
+        final float documentY;
+
+        Slot(float nameX, float nameY, float documentX, float documentY) {
+            this.nameX = nameX * PX;
+            this.nameY = PDRectangle.A4.getHeight() - nameY * PX;
+            this.documentX = documentX * PX;
+            this.documentY = PDRectangle.A4.getHeight() - documentY * PX;
+        }
+
+        int bit() {
+            return 1 << ordinal();
+        }
+
+        boolean witness() {
+            return this == TESTEMUNHA_1 || this == TESTEMUNHA_2;
+        }
+    }
+
+    private final ContractLetterhead background = new ContractLetterhead(RESOURCE);
+    private final ContractLayout layout;
+
+    public ContractSignaturePage(ContractLayout layout) {
+        this.layout = layout;
+    }
+
+    // Acrescenta os signatários à página de assinaturas de source (abrindo outras quando o registro
+    // enche) e grava o PDF resultante (original + uma única atualização incremental) em out
+    public void append(File source, MemoryUsageSetting memoryUsage, Contract contract, List<Signature> signers,
+                       OutputStream out) throws IOException {
+        try (PDDocument document = PDDocument.load(source, memoryUsage)) {
+            PDPage page = document.getPage(document.getNumberOfPages() - 1);
+            int usedSlots = page.getCOSObject().getInt(USED_SLOTS, -1);
+            int usedRows = page.getCOSObject().getInt(USED_ROWS, 0);
+
+            ContractFonts.DocumentFonts fonts = layout.fonts().forDocument(document);
+            PDPageContentStream content = null;
+            try {
+                for (Signature signer : signers) {
+                    // Última página não é de assinaturas, ou o registro dela já está cheio: abre outra
+                    boolean newPage = usedSlots < 0 || usedRows + ROWS_PER_SIGNER > MAX_ROWS;
+                    if (newPage) {
+                        if (content != null) {
+                            content.close();
+                            content = null;
+                        }
+                        page = new PDPage(PDRectangle.A4);
+                        document.addPage(page);
+                        usedSlots = 0;
+                        usedRows = 0;
+                    }
+                    if (content == null) {
+                        content = new PDPageContentStream(document, page, PDPageContentStream.AppendMode.APPEND, true, newPage);
+                        if (newPage) drawPageHeader(document, content, fonts, contract);
+                    }
+
+                    Slot slot = freeSlot(signer.getRole(), usedSlots);
+                    if (slot != null) {
+                        drawSlot(content, fonts, slot, signer);
+                        usedSlots |= slot.bit();
+                    }
+                    drawRegisterRows(content, fonts, usedRows, signer, signer.getCreatedAt());
+                    usedRows += ROWS_PER_SIGNER;
+
+                    COSDictionary pageDict = page.getCOSObject();
+                    pageDict.setInt(USED_SLOTS, usedSlots);
+                    pageDict.setInt(USED_ROWS, usedRows);
+                    markUpdated(page);
+                }
+            } finally {
+                if (content != null) content.close();
+            }
+
+            document.getDocumentCatalog().getCOSObject().setNeedToBeUpdated(true);
+            document.saveIncremental(out);
+        }
+    }
+
+    // Só o que mudou entra na atualização incremental. O PDFBox chega aos objetos alterados a
+    // partir do catálogo, então o caminho inteiro (catálogo -> árvore de páginas -> página) é marcado.
+    // Os subdicionários dos recursos (/Font, /XObject) costumam ser objetos indiretos próprios:
+    // sem marcá-los, as fontes embutidas deste registro ficariam de fora.
+    private static void markUpdated(PDPage page) {
+        COSDictionary resources = page.getResources().getCOSObject();
+        resources.setNeedToBeUpdated(true);
+        for (COSName key : resources.keySet()) {
+            if (resources.getDictionaryObject(key) instanceof COSDictionary entry) entry.setNeedToBeUpdated(true);
+        }
+        for (COSDictionary node = page.getCOSObject(); node != null; node = node.getCOSDictionary(COSName.PARENT)) {
+            node.setNeedToBeUpdated(true);
+        }
+    }
+
+    private void drawPageHeader(PDDocument document, PDPageContentStream content, ContractFonts.DocumentFonts fonts,
+                                Contract contract) throws IOException {
+        PDFormXObject form = background.createForm(document, PDRectangle.A4);
+        if (form != null) content.drawForm(form);
+
+        String title = contract.getTitle() != null ? contract.getTitle() : "";
+        showText(content, fonts, true, 10, REGISTER_X, PDRectangle.A4.getHeight() - 40,
+                "ASSINATURAS - " + title.toUpperCase(Locale.ROOT));
+        showText(content, fonts, false, 8, REGISTER_X, PDRectangle.A4.getHeight() - 52,
+                "Contrato " + contract.getUuid());
+        showText(content, fonts, true, 10, REGISTER_X, REGISTER_TOP, "REGISTRO DE SIGNATÁRIOS");
+    }
+
+    private void drawSlot(PDPageContentStream content, ContractFonts.DocumentFonts fonts, Slot slot, Signature signer) throws IOException {
+        String name = signer.getSignerName() != null ? signer.getSignerName() : "";
+        if (slot.witness()) {
+            showText(content, fonts, false, 11, slot.nameX, slot.nameY, name);
+            showText(content, fonts, false, 11, slot.documentX, slot.documentY, "CPF " + formatCpf(signer.getCpf()));
+        } else {
+            showText(content, fonts, true, 11, slot.nameX, slot.nameY, name + " - CPF " + formatCpf(signer.getCpf()));
+        }
+    }
+
+    private void drawRegisterRows(PDPageContentStream content, ContractFonts.DocumentFonts fonts, int usedRows,
+                                  Signature signer, Instant signedAt) throws IOException {
+        float y = REGISTER_TOP - (usedRows + 1.5f) * ROW_HEIGHT;
+        String role = signer.getRole() != null && !signer.getRole().isBlank() ? signer.getRole() : "Parte";
+        showText(content, fonts, true, 9, REGISTER_X, y,
+                signer.getSignerName() + " - " + role + " - CPF " + formatCpf(signer.getCpf()));
+        showText(content, fonts, false, 8, REGISTER_X + 10, y - ROW_HEIGHT + 2,
+                "E-mail " + (signer.getEmail() != null ? signer.getEmail() : "-")
+                        + " - registrado em " + TIMESTAMP.format(signedAt) + " (horário de Brasília)");
+    }
+
+    private void showText(PDPageContentStream content, ContractFonts.DocumentFonts fonts, boolean bold,
+                          float size, float x, float y, String text) throws IOException {
+        content.beginText();
+        content.setFont(fonts.font(bold), size);
+        content.newLineAtOffset(x, y);
+        content.showText(layout.displayable(text, bold));
+        content.endText();
+    }
+
+    // Mesmos papéis do ClicksignService.convertRoleToClicksign
+    private static Slot freeSlot(String role, int usedSlots) {
+        if (role == null) return null;
+        Slot[] candidates = switch (role.toLowerCase(Locale.ROOT)) {
+            case "locador", "locadora", "contratado" -> new Slot[]{Slot.LOCADOR};
+            case "locatário", "locatária", "locatario", "locataria", "contratante" ->
+                    new Slot[]{Slot.LOCATARIO_1, Slot.LOCATARIO_2};
+            case "testemunha" -> new Slot[]{Slot.TESTEMUNHA_1, Slot.TESTEMUNHA_2};
+            default -> new Slot[0];
+        };
+        for (Slot slot : candidates) {
+            if ((usedSlots & slot.bit()) == 0) return slot;
+        }
+        return null;
+    }
+
+    private static String formatCpf(String cpf) {
+        if (cpf == null) return "-";
+        String digits = cpf.replaceAll("\\D", "");
+        if (digits.length() != 11) return cpf;
+        return digits.substring(0, 3) + "." + digits.substring(3, 6) + "." + digits.substring(6, 9) + "-" + digits.substring(9);
+    }
+}
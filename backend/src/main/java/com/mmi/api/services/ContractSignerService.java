@@ -0,0 +1,131 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Contract;
+import com.mmi.models.Signature;
+import com.mmi.models.dto.SignatureDTO;
+import com.mmi.models.dto.SignerResultDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Inclusão de signatários num contrato, um ou vários por pedido. As chamadas ao Clicksign (criar o
+// signatário, se a pessoa ainda não tem chave, e vinculá-lo ao documento) rodam em paralelo no
+// clicksignExecutor, cujo tamanho limita as chamadas simultâneas da aplicação inteira. Nenhuma
+// transação fica aberta durante o HTTP: só quem foi vinculado com sucesso é gravado no fim, junto.
+@Service
+@Slf4j
+public class ContractSignerService {
+
+    private final ContractService contractService;
+    private final ClicksignService clicksignService;
+    private final ClicksignSignerRegistry signerRegistry;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${contract.signers.max-per-request:20}")
+    private int maxPerRequest;
+
+    public ContractSignerService(ContractService contractService,
+                                 ClicksignService clicksignService,
+                                 ClicksignSignerRegistry signerRegistry,
+                                 @Qualifier("clicksignExecutor") ThreadPoolTaskExecutor executor) {
+        this.contractService = contractService;
+        this.clicksignService = clicksignService;
+        this.signerRegistry = signerRegistry;
+        this.executor = executor;
+    }
+
+    // Resultado por signatário, na ordem do pedido. Pedido inválido -> IllegalArgumentException;
+    // contrato ainda sem documento no Clicksign -> IllegalStateException.
+    public List<SignerResultDTO> addSigners(UUID uuid, List<SignatureDTO> signers) {
+        if (signers == null || signers.isEmpty()) {
+            throw new IllegalArgumentException("Informe ao menos um signatário");
+        }
+        if (signers.size() > maxPerRequest) {
+            throw new IllegalArgumentException("Limite de " + maxPerRequest + " signatários por pedido");
+        }
+        Contract contract = contractService.getContractByUuid(uuid);
+        if (contract.getExternalKey() == null) throw new IllegalStateException("Sem externalKey (contrato ainda não enviado ao Clicksign)");
+        String documentKey = contract.getExternalKey();
+
+        // A mesma pessoa em dois papéis resolve a chave uma vez só
+        Map<String, CompletableFuture<ClicksignSignerRegistry.SignerKey>> keys = new HashMap<>();
+        List<CompletableFuture<ClicksignSignerRegistry.SignerKey>> links = new ArrayList<>(signers.size());
+        for (SignatureDTO signer : signers) {
+            String identity = ClicksignSignerRegistry.identity(signer);
+            CompletableFuture<ClicksignSignerRegistry.SignerKey> key = identity != null
+                    ? keys.computeIfAbsent(identity, id -> resolveKey(signer))
+                    : resolveKey(signer);
+            // Cada vínculo sai assim que a chave da pessoa fica pronta
+            links.add(key.thenApplyAsync(k -> link(documentKey, signer, k), executor));
+        }
+
+        List<SignatureDTO> linked = new ArrayList<>();
+        List<SignerResultDTO> results = new ArrayList<>(signers.size());
+        for (int i = 0; i < signers.size(); i++) {
+            SignatureDTO signer = signers.get(i);
+            try {
+                ClicksignSignerRegistry.SignerKey key = links.get(i).join();
+                linked.add(signer);
+                results.add(new SignerResultDTO(signer.getSignerName(), signer.getEmail(), signer.getRole(), key.reused(), null, null));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.warn("Signatário {} não incluído no contrato {}: {}", signer.getEmail(), uuid, cause.getMessage());
+                results.add(new SignerResultDTO(signer.getSignerName(), signer.getEmail(), signer.getRole(), false, null, cause.getMessage()));
+            }
+        }
+        if (linked.isEmpty()) return results;
+
+        List<Signature> recorded = contractService.recordSigners(uuid, linked);
+        for (int i = 0, r = 0; i < results.size(); i++) {
+            SignerResultDTO result = results.get(i);
+            if (result.error() == null) {
+                results.set(i, new SignerResultDTO(result.signerName(), result.email(), result.role(),
+                        result.reusedSignerKey(), recorded.get(r++), null));
+            }
+        }
+        return results;
+    }
+
+    private CompletableFuture<ClicksignSignerRegistry.SignerKey> resolveKey(SignatureDTO signer) {
+        return CompletableFuture.supplyAsync(() -> signerRegistry.resolve(signer), executor);
+    }
+
+    private ClicksignSignerRegistry.SignerKey link(String documentKey, SignatureDTO signer, ClicksignSignerRegistry.SignerKey key) {
+        try {
+            clicksignService.addSignerToDocument(documentKey, key.key(), signer.getRole());
+            return key;
+        } catch (RuntimeException e) {
+            if (!key.reused() || !keyRejected(e)) throw e;
+            // A chave guardada pode não valer mais (signatário removido no Clicksign): cria de novo, uma vez
+            log.info("Chave guardada de {} recusada pelo Clicksign, criando outra: {}", signer.getEmail(), e.getMessage());
+            signerRegistry.forget(signer);
+            ClicksignSignerRegistry.SignerKey fresh = signerRegistry.resolve(signer);
+            clicksignService.addSignerToDocument(documentKey, fresh.key(), signer.getRole());
+            return fresh;
+        }
+    }
+
+    // Só 404/422 do Clicksign indicam chave inválida; timeout, 5xx ou circuito aberto não dizem nada
+    // sobre a chave e, tratados como recusa, gerariam um segundo signatário para a mesma pessoa
+    private static boolean keyRejected(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RestClientResponseException http) {
+                return http.getStatusCode().isSameCodeAs(HttpStatus.NOT_FOUND)
+                        || http.getStatusCode().isSameCodeAs(HttpStatus.UNPROCESSABLE_ENTITY);
+            }
+        }
+        return false;
+    }
+}
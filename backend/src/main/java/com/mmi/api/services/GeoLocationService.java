@@ -1,8 +1,8 @@
 package com.mmi.api.services;
 
+import com.mmi.infra.http.HttpTarget;
+import com.mmi.infra.http.OutboundHttp;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 import org.json.JSONObject;
 
 @Service
@@ -10,14 +10,19 @@ public class GeoLocationService {
 
     private static final String API_URL = "https://ipapi.co/{ip}/json/";
 
+    // Destino "geo": timeout curto e circuito, para o tracking não esperar um ipapi fora do ar
+    private final HttpTarget geo;
+
+    public GeoLocationService(OutboundHttp outboundHttp) {
+        this.geo = outboundHttp.target("geo");
+    }
+
     public GeoLocation getLocation(String ip) {
         try {
-            RestTemplate restTemplate = new RestTemplate();
-            String url = UriComponentsBuilder.fromUriString(API_URL)
-                    .buildAndExpand(ip)
-                    .toUriString();
-
-            String response = restTemplate.getForObject(url, String.class);
+            String response = geo.executeIdempotent(() -> geo.restClient().get()
+                    .uri(API_URL, ip)
+                    .retrieve()
+                    .body(String.class));
             JSONObject json = new JSONObject(response);
 
             GeoLocation location = new GeoLocation();
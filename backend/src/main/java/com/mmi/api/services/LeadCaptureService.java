@@ -0,0 +1,166 @@
+package com.mmi.api.services;
+
+import com.mmi.models.dto.LeadDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Grava em background os leads extraídos pelo chat, para que a resposta ao visitante
+// não espere pelas consultas e saves do LeadService.
+// Envios para a mesma chave (visitorId, telefone ou email) são coalescidos e processados
+// em série; payloads idênticos ao último gravado são ignorados. A retentativa é reagendada
+// no executor, sem dormir com a trava da chave.
+@Service
+@Slf4j
+public class LeadCaptureService {
+
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_REMEMBERED_KEYS = 5_000;
+    private static final Pattern NON_DIGITS = Pattern.compile("\\D");
+
+    private final LeadService leadService;
+    private final ThreadPoolTaskExecutor executor;
+
+    // Último payload pendente por chave: um envio novo substitui o anterior ainda não gravado
+    // (e zera as tentativas). Enquanto a chave está aqui há um drain agendado para ela.
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+
+    // Impressão digital do último payload gravado por chave (LRU simples)
+    private final Map<String, Integer> lastPersisted = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > MAX_REMEMBERED_KEYS;
+                }
+            });
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Value("${lead.capture.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${lead.capture.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    public LeadCaptureService(LeadService leadService,
+                              @Qualifier("leadCaptureExecutor") ThreadPoolTaskExecutor executor) {
+        this.leadService = leadService;
+        this.executor = executor;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    // Enfileira o lead para gravação. Retorna false se não houver chave de identificação ou se a fila estiver cheia.
+    public boolean submit(LeadDTO dto) {
+        String key = idempotencyKey(dto);
+        if (key == null) {
+            log.debug("Lead da IA sem telefone, email ou visitorId, ignorado: {}", dto);
+            return false;
+        }
+
+        Pending entry = new Pending(dto, 1);
+        Pending previous = pending.put(key, entry);
+        if (previous != null) {
+            // Já existe uma gravação agendada para essa chave, ela vai pegar o payload novo
+            return true;
+        }
+        return schedule(key);
+    }
+
+    private boolean schedule(String key) {
+        try {
+            executor.execute(() -> drain(key));
+            return true;
+        } catch (TaskRejectedException e) {
+            // Sai o que estiver pendente, não só o que foi agendado agora: um submit no meio do caminho pode
+            // ter trocado o payload e confiado neste drain. Se ficasse no mapa, nenhum submit seguinte da
+            // chave agendaria gravação de novo.
+            synchronized (lockFor(key)) {
+                pending.remove(key);
+            }
+            log.warn("Fila de captura de leads cheia, lead descartado: {}", key);
+            return false;
+        }
+    }
+
+    // Uma tentativa por execução, com a trava da chave só durante a gravação
+    private void drain(String key) {
+        Pending retry = null;
+        synchronized (lockFor(key)) {
+            Pending entry = pending.remove(key);
+            if (entry == null) return;
+
+            int fingerprint = fingerprint(entry.dto());
+            Integer previous = lastPersisted.get(key);
+            if (previous != null && previous == fingerprint) {
+                log.debug("Lead {} sem alterações, gravação ignorada", key);
+                return;
+            }
+
+            try {
+                leadService.createOrUpdateLeadFromAi(entry.dto());
+                lastPersisted.put(key, fingerprint);
+                return;
+            } catch (Exception e) {
+                if (entry.attempt() >= maxAttempts) {
+                    log.error("Falha ao gravar lead {} após {} tentativas", key, entry.attempt(), e);
+                    return;
+                }
+                log.warn("Falha ao gravar lead {} (tentativa {}/{}): {}", key, entry.attempt(), maxAttempts, e.getMessage());
+                // Ainda dentro da trava: se chegou um payload mais novo, ele substitui este e já tem drain agendado
+                Pending next = new Pending(entry.dto(), entry.attempt() + 1);
+                if (pending.putIfAbsent(key, next) == null) retry = next;
+            }
+        }
+        if (retry != null) {
+            CompletableFuture.delayedExecutor(retryBackoffMs * (retry.attempt() - 1), TimeUnit.MILLISECONDS)
+                    .execute(() -> schedule(key));
+        }
+    }
+
+    private Object lockFor(String key) {
+        return locks[Math.floorMod(key.hashCode(), LOCK_STRIPES)];
+    }
+
+    // Visitante primeiro: todo lead de uma mesma conversa cai na mesma chave e é gravado em série,
+    // mesmo quando o telefone ou o email aparecem só depois (a busca do LeadService não tem trava)
+    static String idempotencyKey(LeadDTO dto) {
+        if (hasText(dto.getVisitorId())) {
+            return "visitor:" + dto.getVisitorId();
+        }
+        if (hasText(dto.getTelefone())) {
+            String digits = NON_DIGITS.matcher(dto.getTelefone()).replaceAll("");
+            if (!digits.isEmpty()) return "tel:" + digits;
+        }
+        if (hasText(dto.getEmail())) {
+            return "email:" + dto.getEmail().trim().toLowerCase(Locale.ROOT);
+        }
+        return null;
+    }
+
+    private static int fingerprint(LeadDTO dto) {
+        return Objects.hash(dto.getNome(), dto.getEmail(), dto.getTelefone(),
+                dto.getInteresse(), dto.getPropertyId(), dto.getVisitorId());
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    private record Pending(LeadDTO dto, int attempt) {
+    }
+}
@@ -43,9 +43,16 @@ public class LeadService {
             existingLead = leadRepository.findByEmail(dto.getEmail()).orElse(null);
         }
 
+        // Mesmo visitante voltando a conversar: reaproveita o lead já ligado ao tracking dele
+        if (existingLead == null && dto.getVisitorId() != null && !dto.getVisitorId().isEmpty()) {
+            existingLead = trackingService.findLeadForVisitor(dto.getVisitorId()).orElse(null);
+        }
+
         if (existingLead != null) {
             // Atualiza informações
             if (dto.getNome() != null) existingLead.setNome(dto.getNome());
+            if (dto.getTelefone() != null && existingLead.getTelefone() == null) existingLead.setTelefone(dto.getTelefone());
+            if (dto.getEmail() != null && existingLead.getEmail() == null) existingLead.setEmail(dto.getEmail());
             if (dto.getInteresse() != null) existingLead.setInteresse(dto.getInteresse());
             // Se a IA detectou um imóvel específico agora, atualiza
             if (dto.getPropertyId() != null) {
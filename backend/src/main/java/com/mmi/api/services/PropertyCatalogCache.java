@@ -0,0 +1,64 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.PropertyRepository;
+import com.mmi.models.Property;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Cópia em memória do catálogo de imóveis usada pelo chat, para não ir ao banco a cada mensagem.
+// Expira sozinha depois do TTL e é invalidada pelo PropertyService quando um imóvel muda.
+@Component
+public class PropertyCatalogCache {
+
+    private final PropertyRepository propertyRepository;
+    private final long ttlMs;
+    private final Counter hits;
+    private final Counter misses;
+
+    private volatile Snapshot snapshot;
+
+    public PropertyCatalogCache(PropertyRepository propertyRepository,
+                                @Value("${chat.catalog.cache-ttl-ms:60000}") long ttlMs,
+                                MeterRegistry meterRegistry) {
+        this.propertyRepository = propertyRepository;
+        this.ttlMs = ttlMs;
+        this.hits = Counter.builder("mmi.chat.catalog.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("mmi.chat.catalog.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    public List<Property> getProperties() {
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(ttlMs)) {
+            hits.increment();
+            return current.properties();
+        }
+        return reload();
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    private synchronized List<Property> reload() {
+        // Outra thread pode ter recarregado enquanto esta esperava o lock
+        Snapshot current = snapshot;
+        if (current != null && !current.isExpired(ttlMs)) {
+            hits.increment();
+            return current.properties();
+        }
+        misses.increment();
+        List<Property> properties = List.copyOf(propertyRepository.findAll());
+        snapshot = new Snapshot(properties, System.currentTimeMillis());
+        return properties;
+    }
+
+    private record Snapshot(List<Property> properties, long loadedAt) {
+        boolean isExpired(long ttlMs) {
+            return System.currentTimeMillis() - loadedAt > ttlMs;
+        }
+    }
+}
@@ -22,6 +22,7 @@ public class PropertyService {
     private final PropertyRepository propertyRepository;
     private final CloudinaryService cloudinaryService;
     private final PropertyImageRepository imageRepository;
+    private final PropertyCatalogCache catalogCache;
 
     public List<Property> getAllProperties() {
         return propertyRepository.findAll();
@@ -56,6 +57,8 @@ public class PropertyService {
             imageRepository.saveAll(imagesToSave);
         }
 
+        catalogCache.invalidate();
+
         // 3. Retorna o imóvel completo.
         return propertyRepository.findById(savedProperty.getId()).orElseThrow();
     }
@@ -74,7 +77,9 @@ public class PropertyService {
         existingProperty.setDescription(propertyDetails.getDescription());
         existingProperty.setType(propertyDetails.getType());
         existingProperty.setTransactionType(propertyDetails.getTransactionType());
-        return propertyRepository.save(existingProperty);
+        Property saved = propertyRepository.save(existingProperty);
+        catalogCache.invalidate();
+        return saved;
     }
 
     @Transactional
@@ -101,11 +106,13 @@ public class PropertyService {
             }
             imageRepository.saveAll(newImages);
         }
+        catalogCache.invalidate();
     }
 
     @Transactional
     public void deletePropertyImages(List<Long> imageIds) {
         imageRepository.deleteAllById(imageIds);
+        catalogCache.invalidate();
     }
 
     public void deleteProperty(Long id) {
@@ -113,5 +120,6 @@ public class PropertyService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Imóvel não encontrado: " + id);
         }
         propertyRepository.deleteById(id);
+        catalogCache.invalidate();
     }
 }
\ No newline at end of file
@@ -0,0 +1,175 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.ContractRepository;
+import com.mmi.infra.storage.BlobStorage;
+import com.mmi.infra.storage.StoredBlob;
+import com.mmi.models.Contract;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Guarda no BlobStorage a via assinada de cada contrato fechado no Clicksign, para o painel não
+// depender da disponibilidade deles. O ClicksignWebhookProcessor marca o contrato como pendente
+// (signedPdfNextAttemptAt) na mesma transação do status ASSINADO e chama wakeUp() após o commit;
+// a varredura periódica cobre reinícios e novas tentativas. O arquivo vem da conexão direto para o
+// BlobStorage, sem passar inteiro pela memória, e nenhuma transação fica aberta durante o download.
+@Component
+@Slf4j
+public class SignedPdfArchiver {
+
+    private final ContractRepository contractRepository;
+    private final ClicksignService clicksignService;
+    private final BlobStorage blobStorage;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionTemplate transaction;
+
+    // Contratos com download em andamento nesta instância (wakeUp e varredura não duplicam)
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    private final Counter archived;
+    private final Counter retried;
+    private final Counter failed;
+    private final Timer downloadTimer;
+
+    @Value("${clicksign.signed-pdf.batch-size:20}")
+    private int batchSize;
+
+    @Value("${clicksign.signed-pdf.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${clicksign.signed-pdf.retry-backoff-ms:30000}")
+    private long retryBackoffMs;
+
+    public SignedPdfArchiver(ContractRepository contractRepository,
+                             ClicksignService clicksignService,
+                             BlobStorage blobStorage,
+                             @Qualifier("signedPdfExecutor") ThreadPoolTaskExecutor executor,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry) {
+        this.contractRepository = contractRepository;
+        this.clicksignService = clicksignService;
+        this.blobStorage = blobStorage;
+        this.executor = executor;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.archived = counter(meterRegistry, "archived");
+        this.retried = counter(meterRegistry, "retry");
+        this.failed = counter(meterRegistry, "failed");
+        this.downloadTimer = Timer.builder("mmi.clicksign.signed-pdf.download").register(meterRegistry);
+    }
+
+    // Chamado depois do commit que marcou contratos como pendentes
+    public void wakeUp() {
+        dispatch();
+    }
+
+    @Scheduled(initialDelayString = "${clicksign.signed-pdf.poll-interval-ms:60000}",
+            fixedDelayString = "${clicksign.signed-pdf.poll-interval-ms:60000}")
+    public void sweep() {
+        dispatch();
+    }
+
+    private void dispatch() {
+        List<Long> pending;
+        try {
+            pending = contractRepository.findSignedPdfPending(Instant.now(), PageRequest.of(0, batchSize));
+        } catch (RuntimeException e) {
+            log.warn("Falha ao buscar vias assinadas pendentes: {}", e.getMessage());
+            return;
+        }
+        for (Long id : pending) {
+            if (!inFlight.add(id)) continue;
+            try {
+                executor.execute(() -> {
+                    try {
+                        archive(id);
+                    } finally {
+                        inFlight.remove(id);
+                    }
+                });
+            } catch (TaskRejectedException e) {
+                // Fila cheia: o contrato continua pendente e volta na próxima varredura
+                inFlight.remove(id);
+                return;
+            }
+        }
+    }
+
+    void archive(Long contractId) {
+        Contract contract = contractRepository.findById(contractId).orElse(null);
+        if (contract == null || contract.getSignedPdfNextAttemptAt() == null) return;
+
+        StoredBlob blob;
+        try {
+            String url = clicksignService.getSignedFileUrl(contract.getExternalKey());
+            if (url == null) {
+                retryLater(contractId, "Via assinada ainda não disponível");
+                return;
+            }
+            blob = downloadTimer.recordCallable(() -> clicksignService.download(url, body -> blobStorage.store(body, "pdf")));
+        } catch (Exception e) {
+            retryLater(contractId, e.getMessage());
+            return;
+        }
+
+        Boolean saved = transaction.execute(status -> contractRepository.findById(contractId)
+                .map(current -> {
+                    current.setSignedPdfBlob(blob);
+                    current.setSignedPdfArchivedAt(Instant.now());
+                    current.setSignedPdfNextAttemptAt(null);
+                    return true;
+                })
+                .orElse(false));
+        if (Boolean.TRUE.equals(saved)) {
+            archived.increment();
+            log.info("Via assinada do contrato {} arquivada ({} bytes)", contract.getUuid(), blob.size());
+        } else {
+            // Contrato removido durante o download
+            deleteQuietly(blob);
+        }
+    }
+
+    private void retryLater(Long contractId, String error) {
+        transaction.executeWithoutResult(status -> contractRepository.findById(contractId).ifPresent(contract -> {
+            int attempts = (contract.getSignedPdfAttempts() != null ? contract.getSignedPdfAttempts() : 0) + 1;
+            contract.setSignedPdfAttempts(attempts);
+            if (attempts >= maxAttempts) {
+                contract.setSignedPdfNextAttemptAt(null);
+                failed.increment();
+                log.warn("Via assinada do contrato {} não arquivada após {} tentativas: {}", contract.getUuid(), attempts, error);
+                return;
+            }
+            contract.setSignedPdfNextAttemptAt(Instant.now().plusMillis(retryBackoffMs << Math.min(attempts - 1, 16)));
+            retried.increment();
+            log.debug("Via assinada do contrato {} fica para depois: {}", contract.getUuid(), error);
+        }));
+    }
+
+    private void deleteQuietly(StoredBlob blob) {
+        if (contractRepository.existsByPdfHash(blob.hash()) || contractRepository.existsBySignedPdfHash(blob.hash())) return;
+        try {
+            blobStorage.delete(blob.path());
+        } catch (IOException e) {
+            log.warn("Falha ao remover via assinada órfã {}: {}", blob.path(), e.getMessage());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("mmi.clicksign.signed-pdf").tag("result", result).register(meterRegistry);
+    }
+}
@@ -7,6 +7,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
+import java.util.Optional;
 
 @Service
 public class TrackingService {
@@ -53,6 +54,12 @@ public class TrackingService {
         }
     }
 
+    // Lead já associado ao histórico desse visitante, se houver
+    public Optional<Lead> findLeadForVisitor(String visitorId) {
+        return trackingEventRepository.findFirstByVisitorIdAndLeadIsNotNull(visitorId)
+                .map(TrackingEvent::getLead);
+    }
+
     public List<TrackingEvent> getLeadHistory(Long leadId) {
         return trackingEventRepository.findByLeadId(leadId);
     }
@@ -1,55 +1,229 @@
 package com.mmi.api.services;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class WatermarkService {
 
-    // Agora recebemos o OutputStream para onde a imagem final será enviada
-    public void addWatermark(MultipartFile originalFile, OutputStream outputStream, float opacity) throws IOException {
+    // Marca d'água decodificada uma vez só, na subida (ARGB pré-multiplicado desenha mais rápido)
+    private final BufferedImage watermark;
+
+    // Largura da marca em fração da foto; a altura também respeita a mesma fração da altura da foto
+    private final float scale;
+
+    // Larguras arredondadas para múltiplos de bucketPx: fotos de tamanhos parecidos usam a mesma variante
+    private final int bucketPx;
+
+    // Qualidade das saídas em JPEG quando o pedido não informa
+    private final float defaultJpegQuality;
+
+    // Variantes já redimensionadas por largura (LRU simples)
+    private final Map<Integer, BufferedImage> variants;
+
+    public WatermarkService(@Value("${watermark.resource:mmi-watermark.png}") String resource,
+                            @Value("${watermark.scale:0.3}") float scale,
+                            @Value("${watermark.bucket-px:32}") int bucketPx,
+                            @Value("${watermark.max-variants:16}") int maxVariants,
+                            @Value("${watermark.jpeg-quality:0.85}") float defaultJpegQuality) {
+        this.watermark = load(resource);
+        this.defaultJpegQuality = defaultJpegQuality;
+        this.scale = scale;
+        this.bucketPx = Math.max(1, bucketPx);
+        this.variants = Collections.synchronizedMap(new LinkedHashMap<>(32, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                return size() > maxVariants;
+            }
+        });
+    }
+
+    // Decodifica a foto e aplica a marca; a codificação fica para WatermarkedImage.writeTo, depois que o
+    // controller já definiu o Content-Type. Formato de saída: o pedido (jpeg ou png) ou o da foto
+    // (JPEG continua JPEG, o resto vira PNG). Formato ou qualidade inválidos -> IllegalArgumentException.
+    public WatermarkedImage addWatermark(MultipartFile originalFile, float opacity, String requestedFormat, Float quality) throws IOException {
+        float jpegQuality = quality != null ? quality : defaultJpegQuality;
+        if (!(jpegQuality > 0 && jpegQuality <= 1)) {
+            throw new IllegalArgumentException("Qualidade deve estar entre 0 e 1");
+        }
+        String requested = normalizeFormat(requestedFormat);
 
         // OTIMIZAÇÃO 1: Usar getInputStream() direto, sem carregar getBytes() na memória
         try (InputStream fileStream = originalFile.getInputStream();
-             InputStream watermarkStream = new ClassPathResource("mmi-watermark.png").getInputStream()) {
-
-            BufferedImage mainImage = ImageIO.read(fileStream);
+             ImageInputStream in = ImageIO.createImageInputStream(fileStream)) {
 
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
             // Verificação de segurança caso o arquivo não seja uma imagem válida
-            if (mainImage == null) {
+            if (readers == null || !readers.hasNext()) {
                 throw new IOException("O arquivo enviado não é uma imagem válida ou suportada.");
             }
-
-            BufferedImage watermarkImage = ImageIO.read(watermarkStream);
-
-            Graphics2D g = (Graphics2D) mainImage.getGraphics();
-            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
+            ImageReader reader = readers.next();
+            String format;
+            BufferedImage mainImage;
+            try {
+                reader.setInput(in, true, true);
+                format = requested != null ? requested
+                        : "jpeg".equalsIgnoreCase(reader.getFormatName()) ? "jpeg" : "png";
+                mainImage = canvas(reader.read(0), "jpeg".equals(format));
+            } finally {
+                reader.dispose();
+            }
 
             int mainWidth = mainImage.getWidth();
             int mainHeight = mainImage.getHeight();
-            int waterWidth = watermarkImage.getWidth();
-            int waterHeight = watermarkImage.getHeight();
+            BufferedImage watermarkImage = variantFor(mainWidth, mainHeight);
+
+            Graphics2D g = mainImage.createGraphics();
+            g.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, opacity));
 
             // Centralizar
-            int x = (mainWidth - waterWidth) / 2;
-            int y = (mainHeight - waterHeight) / 2;
+            int x = (mainWidth - watermarkImage.getWidth()) / 2;
+            int y = (mainHeight - watermarkImage.getHeight()) / 2;
 
             g.drawImage(watermarkImage, x, y, null);
             g.dispose();
 
-            // OTIMIZAÇÃO 2: Escrever direto na saída (response), sem criar array de bytes intermediário
-            ImageIO.write(mainImage, "png", outputStream);
+            return new WatermarkedImage(mainImage, format, jpegQuality);
+        }
+    }
+
+    // Foto com a marca, ainda não codificada
+    public static final class WatermarkedImage {
 
-            // OTIMIZAÇÃO 3: Ajudar o Garbage Collector liberando a imagem pesada
-            mainImage.flush();
+        private final BufferedImage image;
+        private final String format;
+        private final float jpegQuality;
+
+        private WatermarkedImage(BufferedImage image, String format, float jpegQuality) {
+            this.image = image;
+            this.format = format;
+            this.jpegQuality = jpegQuality;
+        }
+
+        public MediaType mediaType() {
+            return "jpeg".equals(format) ? MediaType.IMAGE_JPEG : MediaType.IMAGE_PNG;
+        }
+
+        // OTIMIZAÇÃO 2: Escrever direto na saída (response), sem criar array de bytes intermediário
+        // (cache do ImageIO em memória, não em arquivo temporário)
+        public void writeTo(OutputStream outputStream) throws IOException {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName(format).next();
+            try (ImageOutputStream out = new MemoryCacheImageOutputStream(outputStream)) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                if ("jpeg".equals(format)) {
+                    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                    param.setCompressionQuality(jpegQuality);
+                }
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+                // OTIMIZAÇÃO 3: Ajudar o Garbage Collector liberando a imagem pesada
+                image.flush();
+            }
+        }
+    }
+
+    private static String normalizeFormat(String format) {
+        if (format == null || format.isBlank()) return null;
+        return switch (format.trim().toLowerCase(Locale.ROOT)) {
+            case "jpeg", "jpg", "image/jpeg" -> "jpeg";
+            case "png", "image/png" -> "png";
+            default -> throw new IllegalArgumentException("Formato não suportado: " + format + " (use jpeg ou png)");
+        };
+    }
+
+    // Imagem onde a marca é desenhada: JPEG não tem transparência (fundo branco) e imagens com paleta
+    // (PNG-8, GIF) ou tipos sem suporte direto no Java2D viram RGB para a marca não ser quantizada
+    private static BufferedImage canvas(BufferedImage source, boolean jpeg) {
+        boolean alpha = source.getColorModel().hasAlpha();
+        int type = source.getType();
+        boolean drawable = type == BufferedImage.TYPE_3BYTE_BGR || type == BufferedImage.TYPE_INT_RGB
+                || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_4BYTE_ABGR
+                || type == BufferedImage.TYPE_BYTE_GRAY;
+        if (drawable && !(jpeg && alpha)) return source;
+
+        BufferedImage target = new BufferedImage(source.getWidth(), source.getHeight(),
+                alpha && !jpeg ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        if (jpeg) {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, source.getWidth(), source.getHeight());
+        }
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        source.flush();
+        return target;
+    }
+
+    // Marca na largura do bucket correspondente à foto, sem passar da fração pedida em nenhum eixo
+    BufferedImage variantFor(int imageWidth, int imageHeight) {
+        double byWidth = imageWidth * scale;
+        double byHeight = imageHeight * scale * watermark.getWidth() / watermark.getHeight();
+        int width = (int) Math.min(byWidth, byHeight);
+        int bucket = Math.max(1, width / bucketPx) * bucketPx;
+        if (bucket > width) bucket = Math.max(1, width); // foto menor que um bucket: usa a largura exata
+        return variants.computeIfAbsent(bucket, this::resize);
+    }
+
+    // Redução em etapas de no máximo metade do tamanho: bilinear direto para menos de 50% serrilha
+    private BufferedImage resize(int width) {
+        int height = Math.max(1, Math.round((float) watermark.getHeight() * width / watermark.getWidth()));
+        BufferedImage current = watermark;
+        int w = current.getWidth();
+        int h = current.getHeight();
+        do {
+            w = Math.max(width, w / 2);
+            h = Math.max(height, h / 2);
+            if (width > current.getWidth()) { // ampliação: um passo só
+                w = width;
+                h = height;
+            }
+            BufferedImage step = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = step.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                    width > current.getWidth() ? RenderingHints.VALUE_INTERPOLATION_BICUBIC : RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = step;
+        } while (w != width || h != height);
+        return current;
+    }
+
+    private static BufferedImage load(String resource) {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            BufferedImage decoded = ImageIO.read(in);
+            if (decoded == null) throw new IllegalStateException("Marca d'água inválida: " + resource);
+            BufferedImage image = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D g = image.createGraphics();
+            g.drawImage(decoded, 0, 0, null);
+            g.dispose();
+            return image;
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível carregar a marca d'água " + resource, e);
         }
     }
-}
\ No newline at end of file
+}
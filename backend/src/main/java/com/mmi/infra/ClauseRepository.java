@@ -1,9 +1,15 @@
 package com.mmi.infra;
 
 import com.mmi.models.Clause;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface ClauseRepository extends JpaRepository<Clause, Long> {
     // JpaRepository já nos dá os métodos:
@@ -11,4 +17,9 @@ public interface ClauseRepository extends JpaRepository<Clause, Long> {
     // .findAll() (lista todos)
     // .findById() (busca um)
     // .deleteById() (deleta)
+
+    // Trava a linha até o fim da transação: duas edições simultâneas não podem gerar a mesma versão
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Clause c where c.id = :id")
+    Optional<Clause> findByIdForUpdate(@Param("id") Long id);
 }
\ No newline at end of file
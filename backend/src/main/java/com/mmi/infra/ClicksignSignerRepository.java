@@ -0,0 +1,14 @@
+package com.mmi.infra;
+
+import com.mmi.models.ClicksignSigner;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface ClicksignSignerRepository extends JpaRepository<ClicksignSigner, Long> {
+    Optional<ClicksignSigner> findByEmailAndCpf(String email, String cpf);
+
+    @Transactional
+    void deleteByEmailAndCpf(String email, String cpf);
+}
@@ -1,11 +1,35 @@
 package com.mmi.infra;
 
 import com.mmi.models.Contract;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface ContractRepository extends JpaRepository<Contract, Long> {
     Optional<Contract> findByUuid(UUID uuid);
+
+    // Trava a linha do contrato até o fim da transação (alterações no PDF armazenado)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Contract c where c.uuid = :uuid")
+    Optional<Contract> findByUuidForUpdate(@Param("uuid") UUID uuid);
+
+    boolean existsByPdfHash(String pdfHash);
+
+    boolean existsBySignedPdfHash(String signedPdfHash);
+
+    // Contratos assinados com a via assinada ainda por baixar (idx_contracts_signed_pdf_pending)
+    @Query("select c.id from Contract c where c.signedPdfNextAttemptAt <= :now order by c.signedPdfNextAttemptAt")
+    List<Long> findSignedPdfPending(@Param("now") Instant now, Pageable pageable);
+
+    // Busca em lote pelos documentos do Clicksign (índice idx_contracts_external_key)
+    List<Contract> findAllByExternalKeyIn(Collection<String> externalKeys);
 }
@@ -5,10 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface TrackingEventRepository extends JpaRepository<TrackingEvent, Long> {
     List<TrackingEvent> findByVisitorId(String visitorId);
     List<TrackingEvent> findByLeadId(Long leadId);
+    Optional<TrackingEvent> findFirstByVisitorIdAndLeadIsNotNull(String visitorId);
     @Query("SELECT DISTINCT t.visitorId FROM TrackingEvent t WHERE t.lead IS NULL")
     List<String> findDistinctAnonymousVisitorIds();
 }
\ No newline at end of file
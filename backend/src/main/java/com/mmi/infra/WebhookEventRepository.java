@@ -0,0 +1,44 @@
+package com.mmi.infra;
+
+import com.mmi.models.WebhookEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
+
+    // Próximo lote pronto para processar, na ordem de chegada. SKIP LOCKED: outra instância
+    // processando ao mesmo tempo pega as linhas seguintes em vez de esperar.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from WebhookEvent e where e.status = com.mmi.models.WebhookEvent.Status.PENDENTE"
+            + " and e.nextAttemptAt <= :now order by e.id")
+    List<WebhookEvent> lockNextBatch(@Param("now") Instant now, Pageable page);
+
+    // Um evento ainda pendente, travado, para reprocessar sozinho depois que o lote dele foi desfeito
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from WebhookEvent e where e.id = :id and e.status = com.mmi.models.WebhookEvent.Status.PENDENTE")
+    Optional<WebhookEvent> lockPending(@Param("id") Long id);
+
+    // Ids já aplicados, para descartar reenvios do mesmo evento
+    @Query("select e.eventId from WebhookEvent e where e.status = com.mmi.models.WebhookEvent.Status.PROCESSADO"
+            + " and e.eventId in :eventIds")
+    List<String> findProcessedEventIds(@Param("eventIds") Collection<String> eventIds);
+
+    @Modifying
+    @Query("delete from WebhookEvent e where e.status <> com.mmi.models.WebhookEvent.Status.PENDENTE"
+            + " and e.receivedAt < :before")
+    int deleteFinishedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,139 @@
+package com.mmi.infra.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    @Value("${lead.capture.threads:2}")
+    private int leadCaptureThreads;
+
+    @Value("${lead.capture.queue-capacity:500}")
+    private int leadCaptureQueueCapacity;
+
+    @Value("${contract.jobs.threads:2}")
+    private int contractJobThreads;
+
+    @Value("${contract.jobs.queue-capacity:50}")
+    private int contractJobQueueCapacity;
+
+    @Value("${contract.images.threads:2}")
+    private int contractImageThreads;
+
+    @Value("${contract.images.queue-capacity:32}")
+    private int contractImageQueueCapacity;
+
+    @Value("${contract.render.threads:2}")
+    private int contractRenderThreads;
+
+    @Value("${contract.batch.parallelism:0}")
+    private int contractBatchParallelism;
+
+    @Value("${clicksign.threads:4}")
+    private int clicksignThreads;
+
+    @Value("${clicksign.signed-pdf.threads:2}")
+    private int signedPdfThreads;
+
+    @Value("${clicksign.signed-pdf.batch-size:20}")
+    private int signedPdfBatchSize;
+
+    // Pool dedicado à gravação dos leads extraídos pelo chat (fora da thread do request)
+    @Bean(name = "leadCaptureExecutor")
+    public ThreadPoolTaskExecutor leadCaptureExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(leadCaptureThreads);
+        executor.setMaxPoolSize(leadCaptureThreads);
+        executor.setQueueCapacity(leadCaptureQueueCapacity);
+        executor.setThreadNamePrefix("lead-capture-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        return executor;
+    }
+
+    // Pool dos jobs de criação de contrato (upload das imagens, PDF e Clicksign). Fila limitada:
+    // quando enche, a API responde 503 em vez de acumular uploads em disco.
+    @Bean(name = "contractJobExecutor")
+    public ThreadPoolTaskExecutor contractJobExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(contractJobThreads);
+        executor.setMaxPoolSize(contractJobThreads);
+        executor.setQueueCapacity(contractJobQueueCapacity);
+        executor.setThreadNamePrefix("contract-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Decodificação/redução das fotos anexadas aos contratos. Com a fila cheia a própria thread que
+    // monta o PDF processa a imagem (CallerRuns), então nada é descartado.
+    @Bean(name = "contractImageExecutor")
+    public ThreadPoolTaskExecutor contractImageExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(contractImageThreads);
+        executor.setMaxPoolSize(contractImageThreads);
+        executor.setQueueCapacity(contractImageQueueCapacity);
+        executor.setThreadNamePrefix("contract-image-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Renderização dos PDFs de contrato. Quem chega aqui já reservou memória no ContractRenderPool,
+    // então a fila é limitada pelo orçamento e não precisa de limite próprio.
+    @Bean(name = "contractRenderExecutor")
+    public ThreadPoolTaskExecutor contractRenderExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(contractRenderThreads);
+        executor.setMaxPoolSize(contractRenderThreads);
+        executor.setThreadNamePrefix("contract-render-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Chamadas ao Clicksign feitas em paralelo (signatários em lote). O número de threads é o limite
+    // de requisições simultâneas à API; a fila não tem limite porque cada pedido já é limitado
+    // (contract.signers.max-per-request).
+    @Bean(name = "clicksignExecutor")
+    public ThreadPoolTaskExecutor clicksignExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(clicksignThreads);
+        executor.setMaxPoolSize(clicksignThreads);
+        executor.setThreadNamePrefix("clicksign-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Downloads das vias assinadas: separados do clicksignExecutor para que arquivos grandes não
+    // segurem a inclusão de signatários. A fila comporta um lote da varredura do SignedPdfArchiver.
+    @Bean(name = "signedPdfExecutor")
+    public ThreadPoolTaskExecutor signedPdfExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(signedPdfThreads);
+        executor.setMaxPoolSize(signedPdfThreads);
+        executor.setQueueCapacity(signedPdfBatchSize);
+        executor.setThreadNamePrefix("signed-pdf-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Renderização de contratos em lote: trabalho só de CPU, um worker por núcleo (salvo configuração)
+    @Bean(name = "contractBatchPool", destroyMethod = "shutdown")
+    public ForkJoinPool contractBatchPool() {
+        int parallelism = contractBatchParallelism > 0 ? contractBatchParallelism : Runtime.getRuntime().availableProcessors();
+        return new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("contract-batch-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,11 @@
+package com.mmi.infra.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Tarefas periódicas (processamento dos webhooks do Clicksign). Usa o ThreadPoolTaskScheduler
+// do Spring Boot, configurável por spring.task.scheduling.*.
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
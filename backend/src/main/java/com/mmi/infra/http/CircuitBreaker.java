@@ -0,0 +1,55 @@
+package com.mmi.infra.http;
+
+// Circuito por destino: depois de failure-threshold falhas seguidas abre e recusa chamadas por
+// open-ms; passado esse tempo deixa passar uma chamada de teste (meio aberto), que fecha o circuito
+// se der certo ou o abre de novo se falhar. Threshold 0 desliga.
+final class CircuitBreaker {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    CircuitBreaker(int failureThreshold, long openMs) {
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openMs * 1_000_000L;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.CLOSED) return true;
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) return false;
+            state = State.HALF_OPEN;
+            probeInFlight = false;
+        }
+        if (probeInFlight) return false;
+        probeInFlight = true;
+        return true;
+    }
+
+    // O destino respondeu (inclusive com 4xx)
+    synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    synchronized void onFailure() {
+        if (failureThreshold <= 0) return;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            consecutiveFailures = 0;
+            probeInFlight = false;
+        }
+    }
+
+    synchronized State state() {
+        return state;
+    }
+}
@@ -0,0 +1,200 @@
+package com.mmi.infra.http;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientResponseException;
+
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Um destino externo (Clicksign, OpenAI, Google...) com o seu HttpClient, que mantém as conexões
+// keep-alive abertas entre chamadas, e as proteções aplicadas em volta de cada chamada: bulkhead
+// (máximo de chamadas simultâneas), circuito e novas tentativas com espera exponencial.
+//
+// As proteções ficam em execute() e não num interceptor do RestClient porque interceptors obrigam
+// o corpo da requisição a ficar inteiro em memória, e os uploads para o Clicksign são em streaming.
+// Uma nova tentativa reexecuta o Supplier inteiro, então o corpo é gerado de novo.
+@Slf4j
+public class HttpTarget implements AutoCloseable {
+
+    public record Settings(Duration connectTimeout,
+                           Duration readTimeout,
+                           int maxAttempts,
+                           long retryBackoffMs,
+                           int maxConcurrent,
+                           long maxWaitMs,
+                           int circuitFailureThreshold,
+                           long circuitOpenMs) {
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final HttpClient httpClient;
+    private final RestClient restClient;
+    private final Semaphore permits;
+    private final CircuitBreaker circuit;
+    private final MeterRegistry meterRegistry;
+    private final Counter retries;
+
+    HttpTarget(String name, Settings settings, RestClient.Builder builder, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.settings = settings;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(settings.connectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(settings.readTimeout());
+        this.restClient = builder.requestFactory(requestFactory).build();
+        this.permits = new Semaphore(settings.maxConcurrent(), true);
+        this.circuit = new CircuitBreaker(settings.circuitFailureThreshold(), settings.circuitOpenMs());
+        this.meterRegistry = meterRegistry;
+
+        this.retries = Counter.builder("mmi.http.client.retries").tag("target", name).register(meterRegistry);
+        Gauge.builder("mmi.http.client.active", permits, p -> settings.maxConcurrent() - p.availablePermits())
+                .tag("target", name)
+                .description("Chamadas em andamento para o destino")
+                .register(meterRegistry);
+        Gauge.builder("mmi.http.client.circuit", circuit, c -> c.state().ordinal())
+                .tag("target", name)
+                .description("0 fechado, 1 aberto, 2 meio aberto")
+                .register(meterRegistry);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // Cliente já apontando para o pool e os timeouts deste destino (a URL base fica com quem usa)
+    public RestClient restClient() {
+        return restClient;
+    }
+
+    // Chamadas que não podem ser repetidas às cegas (POST que cria algo): só repete quando a conexão
+    // nem chegou a ser aberta ou o destino respondeu 429
+    public <T> T execute(Supplier<T> call) {
+        return run(call, false);
+    }
+
+    // Chamadas seguras para repetir (GET, consultas): repete também em timeout, erro de I/O e 5xx
+    public <T> T executeIdempotent(Supplier<T> call) {
+        return run(call, true);
+    }
+
+    private <T> T run(Supplier<T> call, boolean idempotent) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return attempt(call);
+            } catch (RuntimeException e) {
+                if (attempt >= settings.maxAttempts() || !retryable(e, idempotent)) throw e;
+                long delay = backoff(attempt);
+                log.debug("{}: tentativa {} falhou ({}), repetindo em {} ms", name, attempt, e.getMessage(), delay);
+                retries.increment();
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private <T> T attempt(Supplier<T> call) {
+        if (!acquirePermit()) {
+            record("rejected", 0);
+            throw new TargetUnavailableException(name, "limite de " + settings.maxConcurrent() + " chamadas simultâneas");
+        }
+        try {
+            if (!circuit.tryAcquire()) {
+                record("circuit_open", 0);
+                throw new TargetUnavailableException(name, "circuito aberto");
+            }
+            long start = System.nanoTime();
+            try {
+                T result = call.get();
+                circuit.onSuccess();
+                record("success", System.nanoTime() - start);
+                return result;
+            } catch (RuntimeException e) {
+                if (isFailure(e)) circuit.onFailure();
+                else circuit.onSuccess();
+                record(outcome(e), System.nanoTime() - start);
+                throw e;
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(settings.maxWaitMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // Jitter de até 50% para as tentativas de várias threads não baterem juntas no destino
+    private long backoff(int attempt) {
+        long base = settings.retryBackoffMs() << Math.min(attempt - 1, 16);
+        return base + ThreadLocalRandom.current().nextLong(base / 2 + 1);
+    }
+
+    // Falhas do destino (contam para o circuito); 4xx é resposta válida de um destino saudável
+    private static boolean isFailure(RuntimeException e) {
+        if (e instanceof ResourceAccessException || e instanceof HttpServerErrorException) return true;
+        return e instanceof RestClientResponseException http && http.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private static boolean retryable(RuntimeException e, boolean idempotent) {
+        if (e instanceof TargetUnavailableException) return false;
+        if (connectFailed(e)) return true;
+        if (e instanceof RestClientResponseException http && http.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) return true;
+        return idempotent && isFailure(e);
+    }
+
+    private static boolean connectFailed(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConnectException || cause instanceof HttpConnectTimeoutException) return true;
+        }
+        return false;
+    }
+
+    private static String outcome(RuntimeException e) {
+        if (e instanceof ResourceAccessException) return "io_error";
+        if (e instanceof RestClientResponseException http) {
+            if (http.getStatusCode().isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS)) return "throttled";
+            return http.getStatusCode().is5xxServerError() ? "server_error" : "client_error";
+        }
+        return "error";
+    }
+
+    private void record(String outcome, long nanos) {
+        Timer.builder("mmi.http.client.calls")
+                .tag("target", name)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+}
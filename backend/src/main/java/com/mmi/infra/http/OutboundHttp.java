@@ -0,0 +1,55 @@
+package com.mmi.infra.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Subsistema único de HTTP de saída. Cada integração pede o seu destino pelo nome e recebe sempre
+// a mesma instância (pool de conexões, timeouts, bulkhead e circuito próprios). Configuração em
+// http.client.<destino>.*, com http.client.default.* para o que não for informado.
+@Component
+public class OutboundHttp {
+
+    private final Environment environment;
+    private final RestClient.Builder restClientBuilder;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HttpTarget> targets = new ConcurrentHashMap<>();
+
+    public OutboundHttp(Environment environment, RestClient.Builder restClientBuilder, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.restClientBuilder = restClientBuilder;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public HttpTarget target(String name) {
+        return targets.computeIfAbsent(name, n -> new HttpTarget(n, settings(n), restClientBuilder.clone(), meterRegistry));
+    }
+
+    private HttpTarget.Settings settings(String name) {
+        return new HttpTarget.Settings(
+                Duration.ofMillis(property(name, "connect-timeout-ms", 3000L)),
+                Duration.ofMillis(property(name, "read-timeout-ms", 10000L)),
+                Math.max(1, property(name, "max-attempts", 3L).intValue()),
+                property(name, "retry-backoff-ms", 200L),
+                Math.max(1, property(name, "max-concurrent", 16L).intValue()),
+                property(name, "max-wait-ms", 1000L),
+                property(name, "circuit-failure-threshold", 5L).intValue(),
+                property(name, "circuit-open-ms", 30000L));
+    }
+
+    private Long property(String target, String key, long fallback) {
+        Long defaultValue = environment.getProperty("http.client.default." + key, Long.class, fallback);
+        return environment.getProperty("http.client." + target + "." + key, Long.class, defaultValue);
+    }
+
+    @PreDestroy
+    public void close() {
+        targets.values().forEach(HttpTarget::close);
+    }
+}
@@ -0,0 +1,16 @@
+package com.mmi.infra.http;
+
+// Chamada recusada sem ir à rede: circuito aberto ou bulkhead do destino sem vaga
+public class TargetUnavailableException extends IllegalStateException {
+
+    private final String target;
+
+    public TargetUnavailableException(String target, String message) {
+        super(target + ": " + message);
+        this.target = target;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mmi.infra.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+// Entrega de arquivos do BlobStorage com suporte a Range. Quando o Tomcat oferece sendfile, o
+// arquivo vai do disco para o socket sem passar pela JVM; nos outros casos o Spring serve o
+// Resource (inclusive as faixas pedidas). Range com sintaxe inválida é ignorado (RFC 9110, seção
+// 14.2): 200 com o arquivo inteiro; 416 só para faixas válidas fora do tamanho do arquivo.
+public final class BlobResponses {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private BlobResponses() {
+    }
+
+    public static ResponseEntity<Resource> serve(BlobStorage storage, StoredBlob blob, MediaType mediaType, String fileName,
+                                                 HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String etag = "\"" + blob.hash() + "\"";
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        List<HttpRange> ranges = parseRanges(rangeHeader);
+        boolean invalidRange = rangeHeader != null && ranges.isEmpty();
+
+        Optional<Path> localFile = storage.localFile(blob.path());
+        if (localFile.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            if (sendfile(localFile.get(), blob.size(), ranges, etag, mediaType, fileName, request, response)) {
+                return null; // resposta já preparada, o Tomcat envia o arquivo
+            }
+        }
+
+        Resource resource = storage.load(blob.path());
+        if (!resource.exists()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (invalidRange) {
+            // O Spring responderia 416 a um Range que não consegue ler: o arquivo inteiro vai daqui
+            writeFull(resource, blob.size(), etag, mediaType, fileName, response);
+            return null;
+        }
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, inline(fileName))
+                .body(resource);
+    }
+
+    // Retorna false se o pedido precisa do caminho padrão (ex.: múltiplas faixas)
+    private static boolean sendfile(Path file, long size, List<HttpRange> ranges, String etag, MediaType mediaType,
+                                    String fileName, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long start = 0;
+        long end = size; // exclusivo
+        int status = HttpServletResponse.SC_OK;
+
+        if (!ranges.isEmpty()) {
+            if (ranges.size() > 1) return false;
+            if (start(ranges.get(0), size) < 0) {
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setContentLength(0);
+                return true;
+            }
+            HttpRange range = ranges.get(0);
+            start = range.getRangeStart(size);
+            end = range.getRangeEnd(size) + 1;
+            status = HttpServletResponse.SC_PARTIAL_CONTENT;
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + size);
+        }
+
+        writeHeaders(response, status, end - start, etag, mediaType, fileName);
+        request.setAttribute(SENDFILE_FILENAME, file.toFile().getCanonicalPath());
+        request.setAttribute(SENDFILE_START, start);
+        request.setAttribute(SENDFILE_END, end);
+        return true;
+    }
+
+    private static void writeFull(Resource resource, long size, String etag, MediaType mediaType, String fileName,
+                                  HttpServletResponse response) throws IOException {
+        writeHeaders(response, HttpServletResponse.SC_OK, size, etag, mediaType, fileName);
+        try (InputStream in = resource.getInputStream()) {
+            in.transferTo(response.getOutputStream());
+        }
+    }
+
+    private static void writeHeaders(HttpServletResponse response, int status, long length, String etag,
+                                     MediaType mediaType, String fileName) {
+        response.setStatus(status);
+        response.setContentType(mediaType.toString());
+        response.setContentLengthLong(length);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, inline(fileName));
+    }
+
+    // Vazio quando não há Range ou quando ele não é legível
+    private static List<HttpRange> parseRanges(String header) {
+        if (header == null) return List.of();
+        try {
+            return HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return List.of();
+        }
+    }
+
+    // Início da faixa, ou -1 se ela não cabe no arquivo (começa depois do fim)
+    private static long start(HttpRange range, long size) {
+        try {
+            long start = range.getRangeStart(size);
+            return start < size ? start : -1;
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    private static String inline(String fileName) {
+        return ContentDisposition.inline().filename(fileName, StandardCharsets.UTF_8).build().toString();
+    }
+}
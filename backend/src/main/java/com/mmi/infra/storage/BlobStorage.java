@@ -0,0 +1,22 @@
+package com.mmi.infra.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+// Armazenamento de arquivos endereçado por conteúdo: o caminho de cada arquivo é derivado do
+// SHA-256 dos bytes, então o mesmo conteúdo gravado duas vezes ocupa um arquivo só.
+public interface BlobStorage {
+
+    StoredBlob store(InputStream content, String extension) throws IOException;
+
+    Resource load(String path);
+
+    // Arquivo local correspondente, quando a implementação grava em disco (permite sendfile)
+    Optional<Path> localFile(String path);
+
+    void delete(String path) throws IOException;
+}
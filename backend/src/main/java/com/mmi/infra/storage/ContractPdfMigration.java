@@ -0,0 +1,54 @@
+package com.mmi.infra.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+
+// Move para o BlobStorage os PDFs que ainda estão na coluna antiga contracts.pdf_data.
+// Roda na subida, um contrato por vez, e não faz nada em bancos que nunca tiveram a coluna.
+@Component
+@Slf4j
+public class ContractPdfMigration implements ApplicationRunner {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlobStorage blobStorage;
+
+    public ContractPdfMigration(JdbcTemplate jdbcTemplate, BlobStorage blobStorage) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.blobStorage = blobStorage;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<Long> ids;
+        try {
+            ids = jdbcTemplate.queryForList(
+                    "SELECT id FROM contracts WHERE pdf_data IS NOT NULL AND pdf_path IS NULL", Long.class);
+        } catch (DataAccessException e) {
+            log.debug("Sem coluna pdf_data para migrar: {}", e.getMessage());
+            return;
+        }
+        if (ids.isEmpty()) return;
+
+        log.info("Migrando {} PDFs de contratos para o BlobStorage", ids.size());
+        for (Long id : ids) {
+            try {
+                byte[] pdf = jdbcTemplate.queryForObject("SELECT pdf_data FROM contracts WHERE id = ?",
+                        (rs, rowNum) -> rs.getBytes(1), id);
+                if (pdf == null) continue;
+                StoredBlob blob = blobStorage.store(new ByteArrayInputStream(pdf), "pdf");
+                jdbcTemplate.update(
+                        "UPDATE contracts SET pdf_hash = ?, pdf_size = ?, pdf_path = ?, pdf_data = NULL WHERE id = ?",
+                        blob.hash(), blob.size(), blob.path(), id);
+            } catch (Exception e) {
+                log.error("Falha ao migrar PDF do contrato {}", id, e);
+            }
+        }
+    }
+}
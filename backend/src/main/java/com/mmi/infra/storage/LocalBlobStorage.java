@@ -0,0 +1,98 @@
+package com.mmi.infra.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+// BlobStorage em disco local: <raiz>/ab/cd/<sha256>.<ext>
+@Component
+public class LocalBlobStorage implements BlobStorage {
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public LocalBlobStorage(@Value("${storage.local.root}") String root) throws IOException {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve("tmp");
+        Files.createDirectories(tmpDir);
+    }
+
+    @Override
+    public StoredBlob store(InputStream content, String extension) throws IOException {
+        // Grava num temporário calculando o hash no caminho e depois move para o endereço final
+        Path tmp = Files.createTempFile(tmpDir, "blob-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(tmp), digest)) {
+                size = content.transferTo(out);
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            String relative = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + "." + extension;
+            Path target = root.resolve(relative);
+            Files.createDirectories(target.getParent());
+
+            if (Files.exists(target)) {
+                // Mesmo conteúdo já armazenado
+                Files.delete(tmp);
+            } else {
+                try {
+                    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (FileAlreadyExistsException e) {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+            return new StoredBlob(hash, size, relative);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    @Override
+    public Resource load(String path) {
+        return new FileSystemResource(resolve(path));
+    }
+
+    @Override
+    public Optional<Path> localFile(String path) {
+        Path file = resolve(path);
+        return Files.isRegularFile(file) ? Optional.of(file) : Optional.empty();
+    }
+
+    @Override
+    public void delete(String path) throws IOException {
+        Files.deleteIfExists(resolve(path));
+    }
+
+    private Path resolve(String path) {
+        Path file = root.resolve(path).normalize();
+        if (!file.startsWith(root)) {
+            throw new IllegalArgumentException("Caminho fora do storage: " + path);
+        }
+        return file;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
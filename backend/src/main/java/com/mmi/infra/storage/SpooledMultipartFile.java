@@ -0,0 +1,78 @@
+package com.mmi.infra.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Cópia em disco de um upload. O MultipartFile do Spring some quando o request termina; este
+// continua disponível para o processamento em background até o diretório ser apagado.
+public class SpooledMultipartFile implements MultipartFile {
+
+    private final String name;
+    private final String originalFilename;
+    private final String contentType;
+    private final Path file;
+    private final long size;
+
+    private SpooledMultipartFile(String name, String originalFilename, String contentType, Path file, long size) {
+        this.name = name;
+        this.originalFilename = originalFilename;
+        this.contentType = contentType;
+        this.file = file;
+        this.size = size;
+    }
+
+    public static SpooledMultipartFile spool(MultipartFile upload, Path directory, int index) throws IOException {
+        Path target = directory.resolve("upload-" + index);
+        try (InputStream in = upload.getInputStream()) {
+            Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new SpooledMultipartFile(upload.getName(), upload.getOriginalFilename(), upload.getContentType(),
+                target, Files.size(target));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getOriginalFilename() {
+        return originalFilename;
+    }
+
+    @Override
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public byte[] getBytes() throws IOException {
+        return Files.readAllBytes(file);
+    }
+
+    @Override
+    public InputStream getInputStream() throws IOException {
+        return Files.newInputStream(file);
+    }
+
+    @Override
+    public void transferTo(File dest) throws IOException {
+        Files.copy(file, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+}
@@ -0,0 +1,5 @@
+package com.mmi.infra.storage;
+
+// Referência a um arquivo gravado no BlobStorage: hash SHA-256 do conteúdo, tamanho em bytes e caminho relativo
+public record StoredBlob(String hash, long size, String path) {
+}
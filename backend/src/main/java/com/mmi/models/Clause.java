@@ -21,6 +21,11 @@ public class Clause {
     @Column(columnDefinition = "TEXT")
     private String content;
 
+    // Incrementada a cada edição; junto com o id, identifica o texto diagramado no ClauseLayoutCache.
+    // Nula nas cláusulas criadas antes da coluna existir (equivale a 0).
+    @Column(name = "version")
+    private Long version;
+
     public Clause(String title, String content) {
         this.title = title;
         this.content = content;
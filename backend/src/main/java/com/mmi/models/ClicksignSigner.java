@@ -0,0 +1,31 @@
+package com.mmi.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Signatário já criado no Clicksign. A mesma pessoa (e-mail + CPF) assina vários contratos com a
+// mesma chave, sem criar outro signatário remoto a cada vez.
+@Entity
+@Data
+@Table(name = "clicksign_signers", uniqueConstraints = @UniqueConstraint(columnNames = {"email", "cpf"}))
+public class ClicksignSigner {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Normalizados: e-mail em minúsculas, CPF só com dígitos
+    @Column(name = "email", nullable = false)
+    private String email;
+
+    @Column(name = "cpf", nullable = false, length = 11)
+    private String cpf;
+
+    @Column(name = "signer_key", nullable = false)
+    private String signerKey;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+}
@@ -3,16 +3,24 @@ package com.mmi.models;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.mmi.infra.storage.StoredBlob;
 import jakarta.persistence.*;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.Base64;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Data
 @Entity
-@Table(name = "contracts")
+// UPDATE só das colunas alteradas: webhooks (status) e o arquivamento da via assinada gravam o
+// mesmo contrato em transações diferentes e um não pode sobrescrever o outro com valores antigos
+@DynamicUpdate
+@Table(name = "contracts", indexes = {
+        @Index(name = "idx_contracts_external_key", columnList = "external_key"),
+        @Index(name = "idx_contracts_signed_pdf_pending", columnList = "signed_pdf_next_attempt_at")
+})
 public class Contract {
 
     @Id
@@ -25,12 +33,53 @@ public class Contract {
     @Column(unique = true, nullable = false, updatable = false)
     private UUID uuid;
 
-    @Column(name = "pdf_data", columnDefinition = "bytea")
+    // PDF fica no BlobStorage; aqui só a referência (hash SHA-256, tamanho e caminho)
+    @Column(name = "pdf_hash", length = 64)
+    private String pdfHash;
+
+    @Column(name = "pdf_size")
+    private Long pdfSize;
+
+    @Column(name = "pdf_path")
     @JsonIgnore
-    private byte[] pdfData;
+    private String pdfPath;
 
+    // Chave do documento no Clicksign (indexada: é por ela que os webhooks chegam)
+    @Column(name = "external_key")
     private String externalKey;
 
+    // Atualizada pelos webhooks do Clicksign; null até o documento ser enviado
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", length = 32)
+    private ContractStatus status;
+
+    // Momento do evento que definiu o status (eventos fora de ordem mais antigos são ignorados)
+    @Column(name = "status_updated_at")
+    private Instant statusUpdatedAt;
+
+    // Via assinada baixada do Clicksign depois do fechamento do documento (também no BlobStorage)
+    @Column(name = "signed_pdf_hash", length = 64)
+    private String signedPdfHash;
+
+    @Column(name = "signed_pdf_size")
+    private Long signedPdfSize;
+
+    @Column(name = "signed_pdf_path")
+    @JsonIgnore
+    private String signedPdfPath;
+
+    @Column(name = "signed_pdf_archived_at")
+    private Instant signedPdfArchivedAt;
+
+    // Arquivamento pendente a partir deste momento (null: nada a baixar ou tentativas esgotadas)
+    @Column(name = "signed_pdf_next_attempt_at")
+    @JsonIgnore
+    private Instant signedPdfNextAttemptAt;
+
+    @Column(name = "signed_pdf_attempts")
+    @JsonIgnore
+    private Integer signedPdfAttempts;
+
     @OneToMany(mappedBy = "contract", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonManagedReference
     private List<Signature> signatures = new ArrayList<>();
@@ -42,12 +91,36 @@ public class Contract {
         }
     }
 
-    @JsonProperty("pdfData")
-    public String getPdfDataAsBase64() {
-        if (this.pdfData != null) {
-            return Base64.getEncoder().encodeToString(this.pdfData);
-        }
-        return null;
+    @JsonProperty("pdfUrl")
+    public String getPdfUrl() {
+        return pdfPath != null ? "/api/contracts/" + uuid + "/pdf" : null;
+    }
+
+    @JsonIgnore
+    public StoredBlob getPdfBlob() {
+        return pdfPath != null ? new StoredBlob(pdfHash, pdfSize != null ? pdfSize : 0, pdfPath) : null;
+    }
+
+    public void setPdfBlob(StoredBlob blob) {
+        this.pdfHash = blob.hash();
+        this.pdfSize = blob.size();
+        this.pdfPath = blob.path();
+    }
+
+    @JsonProperty("signedPdfUrl")
+    public String getSignedPdfUrl() {
+        return signedPdfPath != null ? "/api/contracts/" + uuid + "/signed-pdf" : null;
+    }
+
+    @JsonIgnore
+    public StoredBlob getSignedPdfBlob() {
+        return signedPdfPath != null ? new StoredBlob(signedPdfHash, signedPdfSize != null ? signedPdfSize : 0, signedPdfPath) : null;
+    }
+
+    public void setSignedPdfBlob(StoredBlob blob) {
+        this.signedPdfHash = blob.hash();
+        this.signedPdfSize = blob.size();
+        this.signedPdfPath = blob.path();
     }
 
     @ElementCollection
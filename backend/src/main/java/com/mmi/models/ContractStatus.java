@@ -0,0 +1,12 @@
+package com.mmi.models;
+
+// Situação do contrato no Clicksign, atualizada pelos webhooks
+public enum ContractStatus {
+    // Contrato gravado, mas o envio ao Clicksign falhou: aguarda reenvio (POST /api/contracts/{uuid}/send)
+    FALHA_ENVIO,
+    AGUARDANDO_ASSINATURAS,
+    ASSINADO,
+    CANCELADO,
+    EXPIRADO,
+    RECUSADO
+}
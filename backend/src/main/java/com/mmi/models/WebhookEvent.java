@@ -0,0 +1,64 @@
+package com.mmi.models;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+// Caixa de entrada dos webhooks do Clicksign. O controller só grava o evento e responde; o
+// ClicksignWebhookProcessor aplica depois, em lotes, com retentativa.
+@Entity
+@Data
+@Table(name = "webhook_inbox", indexes = {
+        @Index(name = "idx_webhook_inbox_pending", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_webhook_inbox_event_id", columnList = "event_id")
+})
+public class WebhookEvent {
+
+    public enum Status {
+        PENDENTE,
+        PROCESSADO,
+        DUPLICADO,
+        IGNORADO,
+        FALHOU
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Identifica o evento para descartar reenvios (o Clicksign reenvia o mesmo corpo até receber 2xx)
+    @Column(name = "event_id", nullable = false, length = 64)
+    private String eventId;
+
+    @Column(name = "event_name")
+    private String eventName;
+
+    @Column(name = "document_key")
+    private String documentKey;
+
+    @Column(name = "occurred_at")
+    private Instant occurredAt;
+
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 16)
+    private Status status = Status.PENDENTE;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false, updatable = false)
+    private Instant receivedAt;
+
+    @Column(name = "processed_at")
+    private Instant processedAt;
+}
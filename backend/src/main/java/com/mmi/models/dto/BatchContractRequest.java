@@ -0,0 +1,15 @@
+package com.mmi.models.dto;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Data;
+
+// Lote de contratos a partir de um modelo. Título, nome do arquivo e cláusulas aceitam {{variavel}};
+// cada item de variables gera um contrato.
+@Data
+public class BatchContractRequest {
+    private String title;
+    private List<Long> clauseIds;
+    private String fileName;
+    private List<Map<String, String>> variables;
+}
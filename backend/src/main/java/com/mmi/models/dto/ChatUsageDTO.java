@@ -0,0 +1,13 @@
+package com.mmi.models.dto;
+
+import java.time.LocalDate;
+
+public record ChatUsageDTO(LocalDate day,
+                           long calls,
+                           long failures,
+                           long promptTokens,
+                           long completionTokens,
+                           double estimatedCostUsd,
+                           long leads,
+                           Double costPerLeadUsd) {
+}
@@ -0,0 +1,15 @@
+package com.mmi.models.dto;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// Situação de um job de criação de contrato. contractUuid só vem preenchido depois que o contrato foi gravado.
+public record ContractJobDTO(String id,
+                             String status,
+                             String stage,
+                             int attempt,
+                             UUID contractUuid,
+                             String error,
+                             Instant createdAt,
+                             Instant updatedAt) {
+}
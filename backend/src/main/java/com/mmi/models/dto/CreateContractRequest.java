@@ -7,4 +7,7 @@ import lombok.Data;
 public class CreateContractRequest {
     private String title;
     private List<ClauseDTO> clauses;
+    // Cláusulas da biblioteca, por id, sem reenviar o texto. Entram primeiro, na ordem pedida,
+    // seguidas das enviadas por extenso em clauses.
+    private List<Long> clauseIds;
 }
\ No newline at end of file
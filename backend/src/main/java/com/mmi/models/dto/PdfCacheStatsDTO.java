@@ -0,0 +1,14 @@
+package com.mmi.models.dto;
+
+// Estatísticas do cache de PDFs de contratos (ContractPdfCache)
+public record PdfCacheStatsDTO(
+        boolean enabled,
+        long hits,
+        long misses,
+        long evictions,
+        int entries,
+        long sizeBytes,
+        long maxSizeBytes,
+        double hitRatio
+) {
+}
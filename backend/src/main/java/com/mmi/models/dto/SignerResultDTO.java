@@ -0,0 +1,9 @@
+package com.mmi.models.dto;
+
+import com.mmi.models.Signature;
+
+// Resultado de um signatário do cadastro em lote: signature preenchida em caso de sucesso, error
+// caso contrário. reusedSignerKey indica que a pessoa já existia no Clicksign.
+public record SignerResultDTO(String signerName, String email, String role,
+                              boolean reusedSignerKey, Signature signature, String error) {
+}
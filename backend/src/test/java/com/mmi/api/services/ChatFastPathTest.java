@@ -0,0 +1,66 @@
+package com.mmi.api.services;
+
+import com.mmi.models.dto.ChatRequestDTO;
+import com.mmi.models.dto.ChatResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// Contato solto só é respondido localmente na abertura da conversa; no meio dela vai para o LLM
+class ChatFastPathTest {
+
+    private final PropertyCatalogCache catalogCache = mock(PropertyCatalogCache.class);
+    private final LeadCaptureService leadCaptureService = mock(LeadCaptureService.class);
+    private final ChatFastPath fastPath = new ChatFastPath(new ChatIntentParser(), catalogCache,
+            leadCaptureService, mock(ChatMetrics.class), new SimpleMeterRegistry());
+
+    ChatFastPathTest() {
+        ReflectionTestUtils.setField(fastPath, "enabled", true);
+        ReflectionTestUtils.setField(fastPath, "maxResults", 5);
+        when(catalogCache.getProperties()).thenReturn(List.of());
+        when(leadCaptureService.submit(any())).thenReturn(true);
+    }
+
+    @Test
+    void contactOpeningTheConversationIsAnsweredLocally() {
+        Optional<ChatResponseDTO> answer = fastPath.tryAnswer(request("(19) 98888-7777"));
+
+        assertTrue(answer.isPresent());
+        verify(leadCaptureService).submit(any());
+    }
+
+    @Test
+    void contactInTheMiddleOfTheConversationGoesToTheLlm() {
+        ChatRequestDTO request = request("(19) 98888-7777");
+        request.setHistory(List.of(
+                message("user", "tem apartamento de 2 quartos no Cambuí?"),
+                message("assistant", "Tenho sim! Me passa seu telefone que um corretor te chama.")));
+
+        assertTrue(fastPath.tryAnswer(request).isEmpty());
+        verify(leadCaptureService, never()).submit(any());
+    }
+
+    private static ChatRequestDTO request(String message) {
+        ChatRequestDTO request = new ChatRequestDTO();
+        request.setMessage(message);
+        request.setVisitorId("visitor-1");
+        return request;
+    }
+
+    private static ChatRequestDTO.MessageHistory message(String role, String content) {
+        ChatRequestDTO.MessageHistory history = new ChatRequestDTO.MessageHistory();
+        history.setRole(role);
+        history.setContent(content);
+        return history;
+    }
+}
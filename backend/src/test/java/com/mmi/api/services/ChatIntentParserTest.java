@@ -0,0 +1,78 @@
+package com.mmi.api.services;
+
+import com.mmi.models.Property;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Frases do chat e a consulta ao catálogo que o parser deve extrair delas (campo vazio = null)
+class ChatIntentParserTest {
+
+    private static final List<String> LOCATIONS = List.of("Centro, Campinas", "Cambuí, Campinas");
+
+    private final ChatIntentParser parser = new ChatIntentParser();
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = ';', textBlock = """
+            # mensagem                                                  ; tipo        ; transação ; quartos ; ou mais ; mínimo    ; máximo    ; local
+            quais casas à venda com 3 quartos até 500 mil?              ; Casa        ; VENDA     ; 3       ; false   ;           ; 500000    ;
+            tem apartamento para alugar no Centro?                      ; Apartamento ; LOCACAO   ;         ; false   ;           ;           ; Centro, Campinas
+            procuro apto com pelo menos dois quartos                    ; Apartamento ;           ; 2       ; true    ;           ;           ;
+            quero casa com mais de 2 quartos                            ; Casa        ;           ; 3       ; true    ;           ;           ;
+            existe terreno a partir de 200 mil até 1,5 milhão?          ; Terreno     ;           ;         ; false   ; 200000    ; 1500000   ;
+            quais coberturas à venda acima de R$ 1.200.000?             ; Cobertura   ; VENDA     ;         ; false   ; 1200000   ;           ;
+            tem casa com 3 quartos ou mais no Cambuí?                   ; Casa        ;           ; 3       ; true    ;           ;           ; Cambuí, Campinas
+            quero alugar casa de uma suíte até 2500                     ; Casa        ; LOCACAO   ; 1       ; false   ;           ; 2500      ;
+            tem casa com algum quarto sobrando?                         ; Casa        ;           ;         ; false   ;           ;           ;
+            quero um apartamento para alugar que bate 3 mil             ; Apartamento ; LOCACAO   ;         ; false   ;           ;           ;
+            quais lojas disponíveis que combate 800?                    ; Comercial   ;           ;         ; false   ;           ;           ;
+            """)
+    void parsesCatalogQuery(String message, Property.PropertyType type, Property.TransactionType transactionType,
+                            Integer bedrooms, boolean bedroomsAtLeast, Double minPrice, Double maxPrice, String location) {
+        ChatIntentParser.CatalogQuery expected = new ChatIntentParser.CatalogQuery(
+                type, transactionType, bedrooms, bedroomsAtLeast, minPrice, maxPrice, location);
+
+        assertEquals(Optional.of(expected), parser.parseCatalogQuery(message, LOCATIONS));
+    }
+
+    // Conversa de verdade, sem tipo nem transação ou com contato: segue para o LLM
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+            "como funciona o financiamento de uma casa?",
+            "quero agendar uma visita no apartamento",
+            "tem casa ou apartamento à venda?",
+            "quais as opções?",
+            "quero casa, meu telefone é 11 99999-0000",
+            "bom dia"
+    })
+    void leavesConversationToTheLlm(String message) {
+        assertTrue(parser.parseCatalogQuery(message, LOCATIONS).isEmpty());
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource(delimiter = ';', textBlock = """
+            # mensagem                                          ; nome         ; telefone         ; email
+            meu nome é João Silva, 11 99999-0000                ; João Silva   ; 11 99999-0000    ;
+            me chamo ana, ana.souza@example.com                 ; Ana          ;                  ; ana.souza@example.com
+            (19) 98888-7777                                     ;              ; (19) 98888-7777  ;
+            """)
+    void parsesContact(String message, String nome, String telefone, String email) {
+        assertEquals(Optional.of(new ChatIntentParser.ContactDisclosure(nome, telefone, email)), parser.parseContact(message));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(strings = {
+            "quero saber mais sobre o imóvel",
+            "meu email é ana@example.com e queria saber se o apartamento do centro aceita pet e tem vaga coberta"
+    })
+    void ignoresMessagesThatAreNotJustContact(String message) {
+        assertFalse(parser.parseContact(message).isPresent());
+    }
+}
@@ -0,0 +1,164 @@
+package com.mmi.api.services;
+
+import com.mmi.infra.ContractRepository;
+import com.mmi.infra.WebhookEventRepository;
+import com.mmi.models.Contract;
+import com.mmi.models.ContractStatus;
+import com.mmi.models.WebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mockingDetails;
+
+// Processamento da webhook_inbox contra o banco de verdade: reenvios, eventos fora de ordem,
+// documento ainda desconhecido e um evento com erro no meio do lote. O agendamento fica parado
+// (poll de uma hora) e o teste chama processPending() direto.
+@SpringBootTest(properties = {
+        "clicksign.webhooks.poll-interval-ms=3600000",
+        "clicksign.webhooks.max-attempts=3",
+        "clicksign.webhooks.retry-backoff-ms=0"
+})
+class ClicksignWebhookProcessorTest {
+
+    private static final String POISON_KEY = "doc-poison";
+
+    @Autowired
+    private ClicksignWebhookInbox webhookInbox;
+
+    @Autowired
+    private ClicksignWebhookProcessor processor;
+
+    @Autowired
+    private WebhookEventRepository inbox;
+
+    @MockitoSpyBean
+    private ContractRepository contractRepository;
+
+    @BeforeEach
+    void clearInbox() {
+        inbox.deleteAll();
+        // Busca dos contratos falha sempre que o documento envenenado está no lote. O repositório é um
+        // proxy: o resto vai para a resposta padrão do spy, que delega ao repositório real.
+        Answer<?> real = mockingDetails(contractRepository).getMockCreationSettings().getDefaultAnswer();
+        doAnswer(invocation -> {
+            Collection<String> keys = invocation.getArgument(0);
+            if (keys.contains(POISON_KEY)) throw new IllegalStateException("falha simulada no banco");
+            return real.answer(invocation);
+        }).when(contractRepository).findAllByExternalKeyIn(any());
+    }
+
+    @Test
+    void resentEventIsAppliedOnce() {
+        String key = contract();
+        String body = webhook("cancel", key, "2024-03-01T10:00:00Z");
+
+        WebhookEvent first = webhookInbox.receive(body);
+        WebhookEvent sameBatch = webhookInbox.receive(body);
+        processor.processPending();
+        WebhookEvent later = webhookInbox.receive(body);
+        processor.processPending();
+
+        assertEquals(WebhookEvent.Status.PROCESSADO, reload(first).getStatus());
+        assertEquals(WebhookEvent.Status.DUPLICADO, reload(sameBatch).getStatus());
+        assertEquals(WebhookEvent.Status.DUPLICADO, reload(later).getStatus());
+        assertEquals(ContractStatus.CANCELADO, status(key));
+    }
+
+    @Test
+    void olderEventDoesNotOverwriteNewerStatus() {
+        String key = contract();
+        webhookInbox.receive(webhook("cancel", key, "2024-03-01T12:00:00Z"));
+        processor.processPending();
+        WebhookEvent older = webhookInbox.receive(webhook("refusal", key, "2024-03-01T11:00:00Z"));
+        processor.processPending();
+
+        assertEquals(WebhookEvent.Status.PROCESSADO, reload(older).getStatus());
+        assertEquals(ContractStatus.CANCELADO, status(key));
+    }
+
+    @Test
+    void unknownDocumentIsRetriedUntilTheContractExists() {
+        String key = "doc-" + UUID.randomUUID();
+        WebhookEvent event = webhookInbox.receive(webhook("refusal", key, "2024-03-01T10:00:00Z"));
+        processor.processPending();
+
+        WebhookEvent pending = reload(event);
+        assertEquals(WebhookEvent.Status.PENDENTE, pending.getStatus());
+        assertEquals(1, pending.getAttempts());
+        assertNotNull(pending.getLastError());
+
+        contract(key);
+        processor.processPending();
+        assertEquals(WebhookEvent.Status.PROCESSADO, reload(event).getStatus());
+        assertEquals(ContractStatus.RECUSADO, status(key));
+    }
+
+    @Test
+    void unknownDocumentFailsAfterMaxAttempts() {
+        WebhookEvent event = webhookInbox.receive(webhook("refusal", "doc-" + UUID.randomUUID(), "2024-03-01T10:00:00Z"));
+        for (int i = 0; i < 3; i++) processor.processPending();
+
+        WebhookEvent failed = reload(event);
+        assertEquals(WebhookEvent.Status.FALHOU, failed.getStatus());
+        assertEquals(3, failed.getAttempts());
+    }
+
+    @Test
+    void failingEventDoesNotBlockTheRestOfTheBatch() {
+        String key = contract();
+        WebhookEvent poison = webhookInbox.receive(webhook("cancel", POISON_KEY, "2024-03-01T10:00:00Z"));
+        WebhookEvent healthy = webhookInbox.receive(webhook("cancel", key, "2024-03-01T10:00:00Z"));
+        processor.processPending();
+
+        assertEquals(WebhookEvent.Status.PROCESSADO, reload(healthy).getStatus());
+        assertEquals(ContractStatus.CANCELADO, status(key));
+        WebhookEvent retrying = reload(poison);
+        assertEquals(WebhookEvent.Status.PENDENTE, retrying.getStatus());
+        assertEquals(1, retrying.getAttempts());
+
+        // A tentativa é gravada fora da transação desfeita: o evento para em FALHOU
+        processor.processPending();
+        processor.processPending();
+        assertEquals(WebhookEvent.Status.FALHOU, reload(poison).getStatus());
+        assertEquals(3, reload(poison).getAttempts());
+    }
+
+    private String contract() {
+        return contract("doc-" + UUID.randomUUID());
+    }
+
+    private String contract(String externalKey) {
+        Contract contract = new Contract();
+        contract.setUuid(UUID.randomUUID());
+        contract.setTitle("Contrato de teste");
+        contract.setExternalKey(externalKey);
+        contract.setStatus(ContractStatus.AGUARDANDO_ASSINATURAS);
+        contractRepository.save(contract);
+        return externalKey;
+    }
+
+    private ContractStatus status(String externalKey) {
+        return contractRepository.findAllByExternalKeyIn(List.of(externalKey)).get(0).getStatus();
+    }
+
+    private WebhookEvent reload(WebhookEvent event) {
+        return inbox.findById(event.getId()).orElseThrow();
+    }
+
+    private static String webhook(String name, String documentKey, String occurredAt) {
+        return "{\"event\":{\"name\":\"" + name + "\",\"occurred_at\":\"" + occurredAt + "\"},"
+                + "\"document\":{\"key\":\"" + documentKey + "\"}}";
+    }
+}
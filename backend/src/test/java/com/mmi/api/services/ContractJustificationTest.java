@@ -0,0 +1,87 @@
+package com.mmi.api.services;
+
+import com.mmi.models.dto.ClauseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Linhas justificadas têm de terminar na margem direita com as duas fontes (a embutida usa códigos
+// de 2 bytes, em que o operador Tw não tem efeito)
+class ContractJustificationTest {
+
+    private static final String PARAGRAPH = ("O *LOCATÁRIO* se obriga a pagar o aluguel mensal até o dia 5 de cada mês, sob pena "
+            + "de multa de 10% sobre o valor devido, acrescida de juros de mora de 1% ao mês e correção monetária "
+            + "pelo IGP-M, respondendo ainda pelas despesas de condomínio, IPTU e consumo de água e energia. ").repeat(3);
+
+    private static ThreadPoolTaskExecutor imageExecutor;
+
+    @BeforeAll
+    static void startExecutor() {
+        imageExecutor = new ThreadPoolTaskExecutor();
+        imageExecutor.setCorePoolSize(1);
+        imageExecutor.initialize();
+    }
+
+    @AfterAll
+    static void stopExecutor() {
+        imageExecutor.shutdown();
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void justifiedLinesReachTheRightMargin(boolean embeddedFonts) throws IOException {
+        byte[] pdf = contractService(embeddedFonts).generateContractPDF("Contrato",
+                List.of(new ClauseDTO("CLÁUSULA 1 - DO PAGAMENTO", PARAGRAPH)));
+
+        // Borda direita de cada linha do parágrafo, por posição vertical
+        Map<Float, Float> rightEdges = new TreeMap<>();
+        try (PDDocument document = PDDocument.load(pdf)) {
+            PDFTextStripper stripper = new PDFTextStripper() {
+                @Override
+                protected void writeString(String text, List<TextPosition> positions) {
+                    // Só o corpo (tamanho 12): título e cláusula usam outros tamanhos; rodapé fica de fora
+                    if (positions.isEmpty() || text.startsWith("Página")) return;
+                    TextPosition lastGlyph = positions.get(positions.size() - 1);
+                    if (Math.abs(lastGlyph.getFontSizeInPt() - ContractLayout.FONT_SIZE) > 0.1f) return;
+                    rightEdges.merge(lastGlyph.getYDirAdj(), lastGlyph.getXDirAdj() + lastGlyph.getWidthDirAdj(), Math::max);
+                }
+            };
+            stripper.setSortByPosition(true);
+            stripper.setEndPage(1);
+            stripper.getText(document);
+        }
+
+        List<Float> lines = List.copyOf(rightEdges.values());
+        assertTrue(lines.size() >= 4, "Parágrafo deveria ocupar várias linhas: " + lines);
+        float margin = PDRectangle.A4.getWidth() - ContractService.MARGIN;
+        // A última linha do parágrafo fica alinhada à esquerda
+        for (float edge : lines.subList(0, lines.size() - 1)) {
+            assertEquals(margin, edge, 0.5f, "Linha justificada terminou fora da margem: " + lines);
+        }
+        assertTrue(lines.get(lines.size() - 1) < margin - 0.5f);
+    }
+
+    private static ContractService contractService(boolean embeddedFonts) throws IOException {
+        ContractRenderPool renderPool = new ContractRenderPool(imageExecutor, new SimpleMeterRegistry(), 64, 8, "", 60_000);
+        ContractLayout layout = new ContractLayout(new ContractFonts(embeddedFonts));
+        return new ContractService(null, null, null, null,
+                new ContractLetterhead(), null, layout,
+                new ContractImageEmbedder(imageExecutor, 150, 0.85f), renderPool, new ContractSignaturePage(layout),
+                new ContractPdfCache("", 0, new SimpleMeterRegistry()), new ClauseLayoutCache(layout, new SimpleMeterRegistry()));
+    }
+}
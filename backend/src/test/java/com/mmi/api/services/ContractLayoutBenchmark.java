@@ -0,0 +1,180 @@
+package com.mmi.api.services;
+
+import org.apache.pdfbox.pdmodel.font.PDFont;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Microbenchmark da quebra de linhas: custo para diagramar 1.000 cláusulas com a implementação
+// antiga (getStringWidth por palavra, regex compilada por parágrafo) e com o ContractLayout.
+// Só roda quando pedido: mvn test -Dtest=ContractLayoutBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ContractLayoutBenchmark {
+
+    private static final int CLAUSES = 1_000;
+    private static final float WIDTH = 495.28f; // A4 menos as margens de 50pt
+    private static final int ROUNDS = Integer.getInteger("benchmark.rounds", 20);
+
+    private static final List<String> CONTENTS = List.of(
+            "O *LOCATÁRIO* se obriga a pagar o aluguel mensal até o dia 5 de cada mês, sob pena de multa de 10% "
+                    + "sobre o valor devido, acrescida de juros de mora de 1% ao mês e correção monetária pelo IGP-M.",
+            "Parágrafo único: as partes elegem o foro da comarca de *São Paulo* para dirimir quaisquer dúvidas "
+                    + "oriundas deste contrato, renunciando a qualquer outro por mais privilegiado que seja.\n\n"
+                    + "E por estarem justas e contratadas, assinam o presente instrumento em duas vias.",
+            "A *VENDEDORA* declara que o imóvel se encontra livre e desembaraçado de quaisquer ônus, dívidas, "
+                    + "hipotecas ou ações reais e pessoais reipersecutórias, respondendo pela evicção de direito.");
+
+    @Test
+    void layoutCostPerThousandClauses() throws IOException {
+        // Mesmas fontes Type1 da implementação antiga, para comparar as quebras
+        ContractLayout layout = new ContractLayout(new ContractFonts(false));
+        List<String> clauses = new ArrayList<>();
+        for (int i = 0; i < CLAUSES; i++) clauses.add(CONTENTS.get(i % CONTENTS.size()));
+
+        // Mesmo resultado nas duas implementações
+        for (String content : CONTENTS) {
+            assertEquals(legacyBreaks(content), newBreaks(layout, content));
+        }
+
+        long legacy = measure(() -> {
+            int lines = 0;
+            for (String c : clauses) lines += legacyLayout(c);
+            return lines;
+        });
+        long current = measure(() -> {
+            int lines = 0;
+            for (String c : clauses) {
+                for (String paragraph : layout.paragraphs(c)) {
+                    if (!paragraph.trim().isEmpty()) lines += layout.layoutParagraph(paragraph, WIDTH).size();
+                }
+            }
+            return lines;
+        });
+
+        System.out.printf(Locale.ROOT, "Layout de %d cláusulas: antes %.2f ms | depois %.2f ms | %.1fx%n",
+                CLAUSES, legacy / 1e6, current / 1e6, (double) legacy / current);
+    }
+
+    @FunctionalInterface
+    private interface Run {
+        int run() throws IOException;
+    }
+
+    // Melhor tempo (ns) entre as rodadas, depois de aquecer
+    private static long measure(Run run) throws IOException {
+        long sink = 0;
+        for (int i = 0; i < ROUNDS; i++) sink += run.run();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            sink += run.run();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        if (sink == 0) throw new IllegalStateException();
+        return best;
+    }
+
+    private static List<String> newBreaks(ContractLayout layout, String content) throws IOException {
+        List<String> out = new ArrayList<>();
+        for (String paragraph : layout.paragraphs(content)) {
+            if (paragraph.trim().isEmpty()) continue;
+            for (ContractLayout.Line line : layout.layoutParagraph(paragraph, WIDTH)) {
+                out.add(line.words().stream().map(ContractLayout.Word::text).toList() + "@" + line.wordSpacing());
+            }
+        }
+        return out;
+    }
+
+    private static List<String> legacyBreaks(String content) throws IOException {
+        List<String> out = new ArrayList<>();
+        legacyLayout(content, out);
+        return out;
+    }
+
+    private static int legacyLayout(String content) throws IOException {
+        return legacyLayout(content, null);
+    }
+
+    // Cópia do algoritmo anterior do ContractService (generateContractPDF + printLine + parseContentToWords)
+    private static int legacyLayout(String content, List<String> out) throws IOException {
+        int lines = 0;
+        for (String paragraph : content.split("\\r?\\n")) {
+            if (paragraph.trim().isEmpty()) continue;
+            String safeParagraph = paragraph.replaceAll("[\\t\\x0B\\f\\r]", " ");
+            List<LegacyWord> words = legacyParse(safeParagraph);
+            List<LegacyWord> currentLine = new ArrayList<>();
+            float currentLineWidth = 0;
+            for (LegacyWord word : words) {
+                float spaceWidth = legacyFont(word.bold).getStringWidth(" ") / 1000 * ContractLayout.FONT_SIZE;
+                if (currentLineWidth + word.width > WIDTH) {
+                    lines++;
+                    legacyEmit(currentLine, true, out);
+                    currentLine.clear();
+                    currentLineWidth = 0;
+                }
+                currentLine.add(word);
+                currentLineWidth += word.width + spaceWidth;
+            }
+            if (!currentLine.isEmpty()) {
+                lines++;
+                legacyEmit(currentLine, false, out);
+            }
+        }
+        return lines;
+    }
+
+    private static void legacyEmit(List<LegacyWord> words, boolean justify, List<String> out) throws IOException {
+        float totalWordWidth = 0;
+        for (LegacyWord w : words) totalWordWidth += w.width;
+        float extraSpace = 0;
+        if (justify && words.size() > 1) {
+            float totalStandardSpacesWidth = 0;
+            for (int i = 0; i < words.size() - 1; i++) {
+                totalStandardSpacesWidth += legacyFont(words.get(i).bold).getStringWidth(" ") / 1000 * ContractLayout.FONT_SIZE;
+            }
+            extraSpace = (WIDTH - totalWordWidth - totalStandardSpacesWidth) / (words.size() - 1);
+        }
+        if (out != null) out.add(words.stream().map(w -> w.text).toList() + "@" + extraSpace);
+    }
+
+    private static List<LegacyWord> legacyParse(String text) throws IOException {
+        List<LegacyWord> words = new ArrayList<>();
+        Pattern pattern = Pattern.compile("\\*([^*]+)\\*|([^*\\s]+)");
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            if (matcher.group(1) != null) {
+                for (String subWord : matcher.group(1).split("\\s+")) {
+                    if (!subWord.isEmpty()) words.add(new LegacyWord(subWord, true));
+                }
+            } else {
+                words.add(new LegacyWord(matcher.group(0), false));
+            }
+        }
+        return words;
+    }
+
+    private static PDFont legacyFont(boolean bold) {
+        return bold ? PDType1Font.TIMES_BOLD : PDType1Font.TIMES_ROMAN;
+    }
+
+    private static final class LegacyWord {
+        final String text;
+        final boolean bold;
+        final float width;
+
+        LegacyWord(String text, boolean bold) throws IOException {
+            this.text = text;
+            this.bold = bold;
+            this.width = legacyFont(bold).getStringWidth(text) / 1000 * ContractLayout.FONT_SIZE;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.mmi.api.services;
+
+import com.mmi.models.dto.LeadDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Fila cheia no meio do caminho: a chave não pode ficar presa em pending sem drain agendado,
+// senão nenhum lead seguinte do mesmo visitante é gravado. O executor roda as tarefas na hora
+// e recusa as que o teste mandar.
+class LeadCaptureServiceTest {
+
+    private final List<String> saved = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private final RejectingExecutor executor = new RejectingExecutor();
+    private final LeadCaptureService service = new LeadCaptureService(new LeadService(null, null, null) {
+        @Override
+        public void createOrUpdateLeadFromAi(LeadDTO dto) {
+            if (failuresLeft.getAndDecrement() > 0) throw new IllegalStateException("falha simulada no banco");
+            saved.add(dto.getNome());
+        }
+    }, executor);
+
+    LeadCaptureServiceTest() {
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "retryBackoffMs", 0L);
+    }
+
+    @Test
+    void payloadSubmittedWhileTheDrainIsRejectedDoesNotStrandTheKey() {
+        // O submit concorrente entra antes da recusa, vê a chave ocupada e confia no drain recusado
+        executor.beforeReject = () -> assertTrue(service.submit(lead("Maria")));
+        executor.rejections = 1;
+
+        assertFalse(service.submit(lead("Ana")));
+        assertTrue(service.submit(lead("Maria Souza")));
+
+        assertEquals(List.of("Maria Souza"), saved);
+    }
+
+    @Test
+    void rejectedRetryDoesNotStrandTheKey() throws InterruptedException {
+        failuresLeft.set(1);
+        CountDownLatch retried = new CountDownLatch(1);
+        executor.rejections = 1;
+        executor.skipBeforeRejecting = 1;
+        executor.beforeReject = retried::countDown;
+
+        assertTrue(service.submit(lead("Ana")));
+        assertTrue(retried.await(5, TimeUnit.SECONDS));
+        assertTrue(saved.isEmpty());
+
+        // A retentativa recusada limpa a chave; espera o schedule terminar antes do próximo envio
+        Map<?, ?> pending = (Map<?, ?>) ReflectionTestUtils.getField(service, "pending");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!pending.isEmpty() && System.nanoTime() < deadline) Thread.sleep(10);
+        assertTrue(pending.isEmpty());
+        assertTrue(service.submit(lead("Ana Lima")));
+        assertEquals(List.of("Ana Lima"), saved);
+    }
+
+    private static LeadDTO lead(String nome) {
+        LeadDTO dto = new LeadDTO();
+        dto.setVisitorId("visitor-1");
+        dto.setNome(nome);
+        return dto;
+    }
+
+    private static class RejectingExecutor extends ThreadPoolTaskExecutor {
+        private volatile int skipBeforeRejecting;
+        private volatile int rejections;
+        private volatile Runnable beforeReject = () -> { };
+
+        @Override
+        public void execute(Runnable task) {
+            if (skipBeforeRejecting > 0) {
+                skipBeforeRejecting--;
+            } else if (rejections > 0) {
+                rejections--;
+                beforeReject.run();
+                throw new TaskRejectedException("fila cheia");
+            }
+            task.run();
+        }
+    }
+}
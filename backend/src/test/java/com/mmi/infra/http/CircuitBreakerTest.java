@@ -0,0 +1,77 @@
+package com.mmi.infra.http;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresAndRejectsWhileOpen() {
+        CircuitBreaker circuit = new CircuitBreaker(3, 60_000);
+
+        circuit.onFailure();
+        circuit.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        assertTrue(circuit.tryAcquire());
+
+        circuit.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+        assertFalse(circuit.tryAcquire());
+    }
+
+    @Test
+    void successResetsTheFailureCount() {
+        CircuitBreaker circuit = new CircuitBreaker(2, 60_000);
+
+        circuit.onFailure();
+        circuit.onSuccess();
+        circuit.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+    }
+
+    @Test
+    void halfOpenProbeClosesOnSuccess() {
+        CircuitBreaker circuit = openCircuit();
+
+        assertTrue(circuit.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.state());
+        // Só uma chamada de teste por vez
+        assertFalse(circuit.tryAcquire());
+
+        circuit.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        assertTrue(circuit.tryAcquire());
+        assertTrue(circuit.tryAcquire());
+    }
+
+    @Test
+    void halfOpenProbeReopensOnFailure() {
+        CircuitBreaker circuit = new CircuitBreaker(5, 0);
+        for (int i = 0; i < 5; i++) circuit.onFailure();
+        assertTrue(circuit.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuit.state());
+
+        // Meio aberto: uma falha basta para abrir de novo, sem esperar o threshold
+        circuit.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+    }
+
+    @Test
+    void zeroThresholdNeverOpens() {
+        CircuitBreaker circuit = new CircuitBreaker(0, 60_000);
+        for (int i = 0; i < 100; i++) circuit.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, circuit.state());
+        assertTrue(circuit.tryAcquire());
+    }
+
+    // Aberto com open-ms 0: a próxima chamada já vira a de teste
+    private static CircuitBreaker openCircuit() {
+        CircuitBreaker circuit = new CircuitBreaker(1, 0);
+        circuit.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, circuit.state());
+        return circuit;
+    }
+}
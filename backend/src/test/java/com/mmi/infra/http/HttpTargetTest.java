@@ -0,0 +1,176 @@
+package com.mmi.infra.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpConnectTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HttpTargetTest {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HttpTarget target;
+
+    @AfterEach
+    void close() {
+        if (target != null) target.close();
+    }
+
+    // Falha -> tentativas feitas numa chamada comum (execute) e numa idempotente (executeIdempotent)
+    static Stream<Arguments> failures() {
+        return Stream.of(
+                Arguments.of("conexão recusada", io(new ConnectException("Connection refused")), MAX_ATTEMPTS, MAX_ATTEMPTS),
+                Arguments.of("timeout de conexão", io(new HttpConnectTimeoutException("connect timed out")), MAX_ATTEMPTS, MAX_ATTEMPTS),
+                Arguments.of("429", status(HttpStatus.TOO_MANY_REQUESTS), MAX_ATTEMPTS, MAX_ATTEMPTS),
+                // O pedido pode ter chegado ao destino: só as idempotentes repetem
+                Arguments.of("timeout de leitura", io(new SocketTimeoutException("Read timed out")), 1, MAX_ATTEMPTS),
+                Arguments.of("503", status(HttpStatus.SERVICE_UNAVAILABLE), 1, MAX_ATTEMPTS),
+                Arguments.of("500", status(HttpStatus.INTERNAL_SERVER_ERROR), 1, MAX_ATTEMPTS),
+                // 4xx é resposta definitiva
+                Arguments.of("404", status(HttpStatus.NOT_FOUND), 1, 1),
+                Arguments.of("422", status(HttpStatus.UNPROCESSABLE_ENTITY), 1, 1),
+                Arguments.of("erro de programação", (Supplier<RuntimeException>) () -> new IllegalStateException("bug"), 1, 1)
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("failures")
+    void retriesOnlyWhatIsSafeToRepeat(String description, Supplier<RuntimeException> failure,
+                                       int plainAttempts, int idempotentAttempts) {
+        target = target(MAX_ATTEMPTS, 10, 0);
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThrows(RuntimeException.class, () -> target.execute(failing(calls, failure)));
+        assertEquals(plainAttempts, calls.get(), "execute");
+
+        calls.set(0);
+        assertThrows(RuntimeException.class, () -> target.executeIdempotent(failing(calls, failure)));
+        assertEquals(idempotentAttempts, calls.get(), "executeIdempotent");
+    }
+
+    @Test
+    void retryReturnsTheFirstSuccess() {
+        target = target(MAX_ATTEMPTS, 10, 0);
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = target.executeIdempotent(() -> {
+            if (calls.incrementAndGet() < 2) throw status(HttpStatus.BAD_GATEWAY).get();
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, calls.get());
+        assertEquals(1, meterRegistry.get("mmi.http.client.retries").tag("target", "teste").counter().count());
+    }
+
+    @Test
+    void bulkheadRejectsWhenAllPermitsAreBusy() throws Exception {
+        target = target(MAX_ATTEMPTS, 1, 0);
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> target.execute(() -> {
+            inside.countDown();
+            await(release);
+            return "primeira";
+        }));
+        assertTrue(inside.await(5, TimeUnit.SECONDS));
+
+        AtomicInteger calls = new AtomicInteger();
+        TargetUnavailableException rejected = assertThrows(TargetUnavailableException.class,
+                () -> target.executeIdempotent(() -> calls.incrementAndGet()));
+        // Recusa não chega ao destino nem é repetida
+        assertEquals(0, calls.get());
+        assertEquals(1, meterRegistry.get("mmi.http.client.calls").tag("outcome", "rejected").timer().count());
+        assertTrue(rejected.getMessage().contains("simultâneas"));
+
+        release.countDown();
+        assertEquals("primeira", busy.get(5, TimeUnit.SECONDS));
+        assertEquals(1, target.executeIdempotent(() -> calls.incrementAndGet()));
+    }
+
+    @Test
+    void openCircuitFailsFastWithoutCallingTheTarget() {
+        target = target(1, 10, 2);
+        RuntimeException unavailable = status(HttpStatus.SERVICE_UNAVAILABLE).get();
+        for (int i = 0; i < 2; i++) {
+            RuntimeException thrown = assertThrows(RuntimeException.class, () -> target.execute(() -> {
+                throw unavailable;
+            }));
+            assertSame(unavailable, thrown);
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        TargetUnavailableException rejected = assertThrows(TargetUnavailableException.class,
+                () -> target.executeIdempotent(() -> calls.incrementAndGet()));
+        assertEquals(0, calls.get());
+        assertTrue(rejected.getMessage().contains("circuito aberto"));
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        target = target(1, 10, 2);
+        for (int i = 0; i < 5; i++) {
+            assertThrows(HttpClientErrorException.class, () -> target.execute(() -> {
+                throw status(HttpStatus.NOT_FOUND).get();
+            }));
+        }
+        assertEquals("ok", target.execute(() -> "ok"));
+    }
+
+    private HttpTarget target(int maxAttempts, int maxConcurrent, int circuitFailureThreshold) {
+        HttpTarget.Settings settings = new HttpTarget.Settings(Duration.ofSeconds(1), Duration.ofSeconds(1),
+                maxAttempts, 1, maxConcurrent, 0, circuitFailureThreshold, 60_000);
+        return new HttpTarget("teste", settings, RestClient.builder(), meterRegistry);
+    }
+
+    private static <T> Supplier<T> failing(AtomicInteger calls, Supplier<RuntimeException> failure) {
+        return () -> {
+            calls.incrementAndGet();
+            throw failure.get();
+        };
+    }
+
+    private static Supplier<RuntimeException> io(IOException cause) {
+        return () -> new ResourceAccessException("I/O error: " + cause.getMessage(), cause);
+    }
+
+    private static Supplier<RuntimeException> status(HttpStatus status) {
+        return () -> status.is5xxServerError()
+                ? HttpServerErrorException.create(status, status.getReasonPhrase(), HttpHeaders.EMPTY, null, null)
+                : HttpClientErrorException.create(status, status.getReasonPhrase(), HttpHeaders.EMPTY, null, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
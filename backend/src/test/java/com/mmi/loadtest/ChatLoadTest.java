@@ -0,0 +1,82 @@
+package com.mmi.loadtest;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cenário de carga do /api/chat contra o stub local da OpenAI.
+// Só roda quando pedido: mvn test -Dtest=ChatLoadTest -Dloadtest=true
+// Parâmetros: -Dloadtest.users=50 -Dloadtest.requests=2000 -Dloadtest.warmup=100 e os -Dstub.* do OpenAiStubServer.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ChatLoadTest {
+
+    // Mensagens que não são respondidas pelo fast-path, para exercitar a chamada à OpenAI
+    private static final List<String> MESSAGES = List.of(
+            "Oi! Estou pensando em me mudar e queria umas dicas, pode me ajudar?",
+            "Como funciona o financiamento de um imóvel com vocês?",
+            "Vocês trabalham com imóveis perto de escolas boas?",
+            "Qual a diferença entre comprar na planta e comprar pronto?");
+
+    private static OpenAiStubServer stub;
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void openAiStub(DynamicPropertyRegistry registry) {
+        stub = OpenAiStubServer.start(OpenAiStubServer.Settings.fromSystemProperties());
+        registry.add("openai.api.url", stub::url);
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    void chatThroughputAgainstStub() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 50);
+        int requests = Integer.getInteger("loadtest.requests", 2000);
+        int warmup = Integer.getInteger("loadtest.warmup", 100);
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        URI uri = URI.create("http://localhost:" + port + "/api/chat");
+        AtomicInteger degraded = new AtomicInteger();
+
+        LoadRunner.Report report = LoadRunner.run("POST /api/chat", users, warmup, requests, index -> {
+            String body = "{\"message\":\"" + MESSAGES.get(index % MESSAGES.size())
+                    + "\",\"visitorId\":\"load-" + index + "\",\"history\":[]}";
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .header("Content-Type", "application/json")
+                    .timeout(Duration.ofSeconds(60))
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.body().contains("muitas conversas")) degraded.incrementAndGet();
+            return response.statusCode() == 200;
+        });
+
+        System.out.println(report.format());
+        System.out.printf("Respostas degradadas pelo bulkhead: %d | chamadas ao stub: %d | leads enviados: %d%n",
+                degraded.get(), stub.requests(), stub.leadsSent());
+
+        assertTrue(report.failures() < report.requests(), "Nenhuma requisição teve sucesso");
+    }
+}
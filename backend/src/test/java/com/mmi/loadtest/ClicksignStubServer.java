@@ -0,0 +1,313 @@
+package com.mmi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stub local da API v1 do Clicksign com as chamadas que o ClicksignService faz (POST /documents,
+// /signers e /lists, GET /documents/{key} e o download da via assinada), latência e falhas
+// configuráveis e webhooks de volta para a aplicação. Use apontando clicksign.base.url para url()
+// e, para receber os webhooks, webhooksTo(".../api/webhooks/clicksign").
+//
+// Standalone: rode main() com -Dclicksign-stub.port=18999 -Dclicksign-stub.latency-ms=300 ... e suba o
+// backend com clicksign.base.url=http://localhost:18999; -Dclicksign-stub.webhook-url liga os webhooks.
+public class ClicksignStubServer implements AutoCloseable {
+
+    public record Settings(int port,
+                           long latencyMs,
+                           long jitterMs,
+                           double errorRate,
+                           double signerRejectRate,
+                           int closeAfterSigners,
+                           long webhookDelayMs,
+                           int signedFileKb,
+                           String webhookUrl,
+                           long seed) {
+
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("clicksign-stub.port", 0),
+                    Long.getLong("clicksign-stub.latency-ms", 300),
+                    Long.getLong("clicksign-stub.jitter-ms", 100),
+                    Double.parseDouble(System.getProperty("clicksign-stub.error-rate", "0.0")),
+                    Double.parseDouble(System.getProperty("clicksign-stub.signer-reject-rate", "0.0")),
+                    // Documento fecha (webhook auto_close) quando recebe este número de signatários; 0 nunca fecha
+                    Integer.getInteger("clicksign-stub.close-after-signers", 2),
+                    Long.getLong("clicksign-stub.webhook-delay-ms", 200),
+                    Integer.getInteger("clicksign-stub.signed-file-kb", 256),
+                    System.getProperty("clicksign-stub.webhook-url"),
+                    Long.getLong("clicksign-stub.seed", 42));
+        }
+    }
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final HttpClient webhookClient = HttpClient.newHttpClient();
+    private final ScheduledExecutorService webhookScheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ObjectMapper mapper = new ObjectMapper();
+    // Sorteios de cada chamada derivados de seed + número da chamada, independentes da thread que a atende
+    private final AtomicLong calls = new AtomicLong();
+    private final Map<String, AtomicInteger> signersByDocument = new ConcurrentHashMap<>();
+    private volatile String webhookUrl;
+
+    private final AtomicLong documents = new AtomicLong();
+    private final AtomicLong uploadedBytes = new AtomicLong();
+    private final AtomicLong signers = new AtomicLong();
+    private final AtomicLong lists = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong downloads = new AtomicLong();
+    private final AtomicLong webhooksSent = new AtomicLong();
+    private final AtomicLong webhooksFailed = new AtomicLong();
+
+    private ClicksignStubServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.webhookUrl = settings.webhookUrl();
+        this.server = HttpServer.create(new InetSocketAddress("localhost", settings.port()), 512);
+        this.server.createContext("/documents", this::handleDocuments);
+        this.server.createContext("/signers", this::handleSigners);
+        this.server.createContext("/lists", this::handleLists);
+        this.server.createContext("/files", this::handleFile);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static ClicksignStubServer start(Settings settings) {
+        try {
+            ClicksignStubServer stub = new ClicksignStubServer(settings);
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível subir o stub do Clicksign", e);
+        }
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    // Destino dos webhooks (a porta da aplicação só é conhecida depois que o contexto sobe)
+    public void webhooksTo(String url) {
+        this.webhookUrl = url;
+    }
+
+    public long documents() {
+        return documents.get();
+    }
+
+    public long uploadedBytes() {
+        return uploadedBytes.get();
+    }
+
+    public long signers() {
+        return signers.get();
+    }
+
+    public long lists() {
+        return lists.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    public long downloads() {
+        return downloads.get();
+    }
+
+    public long webhooksSent() {
+        return webhooksSent.get();
+    }
+
+    public long webhooksFailed() {
+        return webhooksFailed.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        webhookScheduler.shutdownNow();
+        webhookClient.close();
+    }
+
+    private void handleDocuments(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            if ("GET".equals(exchange.getRequestMethod()) && path.startsWith("/documents/")) {
+                String key = path.substring("/documents/".length());
+                simulateLatency(nextRandom());
+                ObjectNode root = mapper.createObjectNode();
+                ObjectNode document = root.putObject("document");
+                document.put("key", key);
+                document.putObject("downloads").put("signed_file_url", url() + "/files/" + key + ".pdf");
+                writeJson(exchange, 200, root);
+                return;
+            }
+            // O PDF vem em Base64 dentro do JSON: só conta os bytes, sem guardar o corpo
+            long size = drain(exchange.getRequestBody());
+            SplittableRandom random = nextRandom();
+            simulateLatency(random);
+            if (failNow(exchange, random)) return;
+            documents.incrementAndGet();
+            uploadedBytes.addAndGet(size);
+            String key = "doc-" + UUID.randomUUID();
+            signersByDocument.put(key, new AtomicInteger());
+            ObjectNode root = mapper.createObjectNode();
+            root.putObject("document").put("key", key);
+            writeJson(exchange, 201, root);
+            sendWebhook("upload", key);
+        }
+    }
+
+    private void handleSigners(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            SplittableRandom random = nextRandom();
+            simulateLatency(random);
+            if (failNow(exchange, random)) return;
+            if (random.nextDouble() < settings.signerRejectRate()) {
+                ObjectNode error = mapper.createObjectNode();
+                error.putArray("errors").add("Documentation inválido");
+                writeJson(exchange, 422, error);
+                return;
+            }
+            signers.incrementAndGet();
+            ObjectNode root = mapper.createObjectNode();
+            root.putObject("signer")
+                    .put("key", "sig-" + UUID.randomUUID())
+                    .put("email", body.path("signer").path("email").asText());
+            writeJson(exchange, 201, root);
+        }
+    }
+
+    private void handleLists(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            SplittableRandom random = nextRandom();
+            simulateLatency(random);
+            if (failNow(exchange, random)) return;
+            String documentKey = body.path("list").path("document_key").asText();
+            AtomicInteger documentSigners = signersByDocument.get(documentKey);
+            if (documentSigners == null) {
+                ObjectNode error = mapper.createObjectNode();
+                error.putArray("errors").add("Documento não encontrado");
+                writeJson(exchange, 404, error);
+                return;
+            }
+            lists.incrementAndGet();
+            ObjectNode root = mapper.createObjectNode();
+            root.putObject("list").put("key", "list-" + UUID.randomUUID()).put("document_key", documentKey);
+            writeJson(exchange, 201, root);
+
+            sendWebhook("add_signer", documentKey);
+            if (settings.closeAfterSigners() > 0 && documentSigners.incrementAndGet() == settings.closeAfterSigners()) {
+                sendWebhook("auto_close", documentKey);
+            }
+        }
+    }
+
+    // Via assinada: um PDF mínimo completado com comentários até signed-file-kb
+    private void handleFile(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            downloads.incrementAndGet();
+            byte[] header = "%PDF-1.4\n".getBytes(StandardCharsets.US_ASCII);
+            byte[] filler = ("% " + "x".repeat(1021) + "\n").getBytes(StandardCharsets.US_ASCII);
+            byte[] trailer = "%%EOF\n".getBytes(StandardCharsets.US_ASCII);
+            int blocks = Math.max(0, settings.signedFileKb());
+            exchange.getResponseHeaders().set("Content-Type", "application/pdf");
+            exchange.sendResponseHeaders(200, header.length + (long) blocks * filler.length + trailer.length);
+            OutputStream out = exchange.getResponseBody();
+            out.write(header);
+            for (int i = 0; i < blocks; i++) out.write(filler);
+            out.write(trailer);
+        }
+    }
+
+    private SplittableRandom nextRandom() {
+        return new SplittableRandom(settings.seed() + calls.incrementAndGet() * 0x9E3779B97F4A7C15L);
+    }
+
+    private boolean failNow(HttpExchange exchange, SplittableRandom random) throws IOException {
+        if (random.nextDouble() >= settings.errorRate()) return false;
+        errors.incrementAndGet();
+        ObjectNode error = mapper.createObjectNode();
+        error.putArray("errors").add("stub error");
+        writeJson(exchange, 503, error);
+        return true;
+    }
+
+    private void sendWebhook(String eventName, String documentKey) {
+        String target = webhookUrl;
+        if (target == null) return;
+        ObjectNode root = mapper.createObjectNode();
+        ObjectNode event = root.putObject("event");
+        event.put("name", eventName);
+        event.put("occurred_at", OffsetDateTime.now().toString());
+        root.putObject("document").put("key", documentKey);
+        String body = root.toString();
+
+        webhookScheduler.schedule(() -> {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build();
+            webhookClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        if (error == null && response.statusCode() == 200) webhooksSent.incrementAndGet();
+                        else webhooksFailed.incrementAndGet();
+                    });
+        }, settings.webhookDelayMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void writeJson(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = mapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[16 * 1024];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) > 0) total += n;
+        return total;
+    }
+
+    private void simulateLatency(SplittableRandom random) {
+        long ms = settings.latencyMs() + (settings.jitterMs() > 0 ? (long) (random.nextDouble() * settings.jitterMs()) : 0);
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Settings settings = Settings.fromSystemProperties();
+        ClicksignStubServer stub = start(settings);
+        System.out.println("Stub do Clicksign ouvindo em " + stub.url() + " com " + settings);
+        Thread.currentThread().join();
+    }
+}
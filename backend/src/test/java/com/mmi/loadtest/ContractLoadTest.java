@@ -0,0 +1,225 @@
+package com.mmi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Cenário de carga do fluxo de contratos contra o stub local do Clicksign: criação (job assíncrono
+// até COMPLETED: PDF, upload e gravação) e inclusão de signatários em lote rodando ao mesmo tempo.
+// Os documentos fecham pelo webhook do stub, então o processamento dos webhooks e o arquivamento
+// da via assinada também entram na carga. Relata p95 de cada operação e o uso de heap.
+// Só roda quando pedido: mvn test -Dtest=ContractLoadTest -Dloadtest=true
+// Parâmetros: -Dloadtest.users=8 -Dloadtest.contracts=200 -Dloadtest.signer-rounds=200 -Dloadtest.warmup=10
+// e os -Dclicksign-stub.* do ClicksignStubServer.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@EnabledIfSystemProperty(named = "loadtest", matches = "true")
+class ContractLoadTest {
+
+    private static final String BOUNDARY = "mmi-load-boundary";
+
+    private static ClicksignStubServer stub;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void clicksignStub(DynamicPropertyRegistry registry) throws IOException {
+        stub = ClicksignStubServer.start(ClicksignStubServer.Settings.fromSystemProperties());
+        registry.add("clicksign.base.url", stub::url);
+        registry.add("storage.local.root", Files.createTempDirectory("mmi-loadtest")::toString);
+        registry.add("clicksign.signed-pdf.poll-interval-ms", () -> "1000");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        if (stub != null) stub.close();
+    }
+
+    @Test
+    void contractThroughputAgainstStub() throws Exception {
+        int users = Integer.getInteger("loadtest.users", 8);
+        int contracts = Integer.getInteger("loadtest.contracts", 200);
+        int signerRounds = Integer.getInteger("loadtest.signer-rounds", 200);
+        int warmup = Integer.getInteger("loadtest.warmup", 10);
+        stub.webhooksTo("http://localhost:" + port + "/api/webhooks/clicksign");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        // Contratos que recebem os signatários; um signatário por rodada, para não fechar o documento antes da hora
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < Math.max(1, users); i++) {
+            targets.add(createContract(client, "Alvo " + i));
+        }
+
+        HeapSampler heap = new HeapSampler();
+        heap.start();
+
+        CompletableFuture<LoadRunner.Report> creation = CompletableFuture.supplyAsync(() -> run(() ->
+                LoadRunner.run("Criar contrato", users, warmup, contracts, index ->
+                        createContract(client, "Contrato de carga " + index) != null)));
+        CompletableFuture<LoadRunner.Report> signing = CompletableFuture.supplyAsync(() -> run(() ->
+                LoadRunner.run("Incluir signatários", users, warmup, signerRounds, index ->
+                        addSigners(client, targets.get(index % targets.size()), index))));
+
+        LoadRunner.Report creationReport = creation.join();
+        LoadRunner.Report signingReport = signing.join();
+        heap.stop();
+
+        System.out.println(creationReport.format());
+        System.out.println(signingReport.format());
+        System.out.println(heap.format());
+        System.out.printf("Stub: %d documentos (%.1f MB enviados), %d signatários, %d vínculos, %d erros injetados, "
+                        + "%d downloads da via assinada, %d webhooks entregues, %d recusados%n",
+                stub.documents(), stub.uploadedBytes() / 1_048_576d, stub.signers(), stub.lists(), stub.errors(),
+                stub.downloads(), stub.webhooksSent(), stub.webhooksFailed());
+
+        assertTrue(creationReport.failures() < creationReport.requests(), "Nenhum contrato foi criado");
+        assertTrue(signingReport.failures() < signingReport.requests(), "Nenhum signatário foi incluído");
+    }
+
+    // POST /api/contracts e espera o job terminar; devolve o uuid do contrato ou null se o job falhou
+    private String createContract(HttpClient client, String title) throws Exception {
+        String data = mapper.createObjectNode()
+                .put("title", title)
+                .set("clauses", mapper.createArrayNode()
+                        .add(mapper.createObjectNode().put("title", "Objeto")
+                                .put("content", "O LOCADOR cede ao LOCATÁRIO o imóvel descrito no anexo. ".repeat(20)))
+                        .add(mapper.createObjectNode().put("title", "Prazo")
+                                .put("content", "O prazo da locação é de 30 meses a contar da assinatura. ".repeat(10))))
+                .toString();
+        String multipart = "--" + BOUNDARY + "\r\n"
+                + "Content-Disposition: form-data; name=\"data\"\r\n"
+                + "Content-Type: application/json\r\n\r\n"
+                + data + "\r\n"
+                + "--" + BOUNDARY + "--\r\n";
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/contracts"))
+                .header("Content-Type", "multipart/form-data; boundary=" + BOUNDARY)
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(multipart))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 202) return null;
+        String jobId = mapper.readTree(response.body()).path("id").asText();
+
+        long deadline = System.nanoTime() + Duration.ofMinutes(2).toNanos();
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> poll = client.send(HttpRequest.newBuilder(uri("/api/contracts/jobs/" + jobId)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            JsonNode job = mapper.readTree(poll.body());
+            switch (job.path("status").asText()) {
+                case "COMPLETED":
+                    return job.path("contractUuid").asText();
+                case "FAILED":
+                    return null;
+                default:
+                    Thread.sleep(20);
+            }
+        }
+        return null;
+    }
+
+    private boolean addSigners(HttpClient client, String contractUuid, int index) throws Exception {
+        if (contractUuid == null) return false;
+        String body = mapper.createArrayNode()
+                .add(mapper.createObjectNode()
+                        .put("signerName", "Signatário " + index)
+                        .put("email", "carga" + index + "@example.com")
+                        .put("cpf", String.format("%011d", index))
+                        .put("role", "testemunha"))
+                .toString();
+        HttpRequest request = HttpRequest.newBuilder(uri("/api/contracts/" + contractUuid + "/signatures/bulk"))
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(60))
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static LoadRunner.Report run(ScenarioCall call) {
+        try {
+            return call.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface ScenarioCall {
+        LoadRunner.Report run() throws InterruptedException;
+    }
+
+    // Heap usado amostrado a cada 50 ms durante o cenário (mesma JVM da aplicação) e o que sobra após um GC
+    private static final class HeapSampler {
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final AtomicLong peak = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong samples = new AtomicLong();
+        private volatile boolean running;
+        private Thread thread;
+        private long retained;
+
+        void start() {
+            running = true;
+            thread = Thread.ofPlatform().daemon().name("heap-sampler").start(() -> {
+                while (running) {
+                    long used = memory.getHeapMemoryUsage().getUsed();
+                    peak.accumulateAndGet(used, Math::max);
+                    total.addAndGet(used);
+                    samples.incrementAndGet();
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        void stop() throws InterruptedException {
+            running = false;
+            thread.join();
+            System.gc();
+            retained = memory.getHeapMemoryUsage().getUsed();
+        }
+
+        String format() {
+            double mb = 1_048_576d;
+            return String.format(Locale.ROOT, "Heap: pico=%.1f MB média=%.1f MB após GC=%.1f MB (máximo %.1f MB)",
+                    peak.get() / mb, samples.get() == 0 ? 0 : total.get() / (double) samples.get() / mb,
+                    retained / mb, memory.getHeapMemoryUsage().getMax() / mb);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.mmi.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Executor simples de cenários de carga: N usuários concorrentes disparam um total fixo de
+// requisições e o relatório traz vazão e percentis de latência.
+public final class LoadRunner {
+
+    @FunctionalInterface
+    public interface Call {
+        // Retorna true se a requisição teve sucesso
+        boolean execute(int index) throws Exception;
+    }
+
+    public record Report(String name, int requests, int failures, long elapsedMs,
+                         double throughput, double p50Ms, double p95Ms, double p99Ms, double maxMs) {
+
+        public String format() {
+            return String.format(Locale.ROOT,
+                    "%s: %d reqs (%d falhas) em %d ms | %.1f req/s | p50=%.1f ms p95=%.1f ms p99=%.1f ms max=%.1f ms",
+                    name, requests, failures, elapsedMs, throughput, p50Ms, p95Ms, p99Ms, maxMs);
+        }
+    }
+
+    private LoadRunner() {
+    }
+
+    public static Report run(String name, int concurrency, int warmupRequests, int requests, Call call)
+            throws InterruptedException {
+        if (warmupRequests > 0) {
+            execute(concurrency, warmupRequests, call, new long[warmupRequests], new AtomicInteger());
+        }
+
+        long[] latencies = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+        execute(concurrency, requests, call, latencies, failures);
+        long elapsedNanos = System.nanoTime() - start;
+
+        Arrays.sort(latencies);
+        double elapsedMs = elapsedNanos / 1_000_000d;
+        return new Report(name, requests, failures.get(), Math.round(elapsedMs),
+                requests / (elapsedMs / 1000d),
+                percentile(latencies, 0.50), percentile(latencies, 0.95), percentile(latencies, 0.99),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1_000_000d);
+    }
+
+    private static void execute(int concurrency, int requests, Call call, long[] latencies, AtomicInteger failures)
+            throws InterruptedException {
+        AtomicInteger next = new AtomicInteger();
+        try (ExecutorService users = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int u = 0; u < concurrency; u++) {
+                users.submit(() -> {
+                    int index;
+                    while ((index = next.getAndIncrement()) < requests) {
+                        long t0 = System.nanoTime();
+                        boolean ok;
+                        try {
+                            ok = call.execute(index);
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        latencies[index] = System.nanoTime() - t0;
+                        if (!ok) failures.incrementAndGet();
+                    }
+                });
+            }
+            users.shutdown();
+            if (!users.awaitTermination(30, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("Cenário de carga não terminou no tempo limite");
+            }
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000d;
+    }
+}
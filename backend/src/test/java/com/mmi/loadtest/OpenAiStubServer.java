@@ -0,0 +1,186 @@
+package com.mmi.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stub local da API de chat completions da OpenAI, com latência, erros e payload de lead
+// configuráveis. Use apontando OPENAI_URL (openai.api.url) para url().
+//
+// Standalone: rode main() com -Dstub.port=9090 -Dstub.latency-ms=800 ... e suba o backend com
+// OPENAI_URL=http://localhost:9090/v1/chat/completions
+public class OpenAiStubServer implements AutoCloseable {
+
+    public record Settings(int port,
+                           long latencyMs,
+                           long jitterMs,
+                           double errorRate,
+                           double leadRate,
+                           long streamChunkDelayMs,
+                           long seed) {
+
+        public static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("stub.port", 0),
+                    Long.getLong("stub.latency-ms", 800),
+                    Long.getLong("stub.jitter-ms", 200),
+                    Double.parseDouble(System.getProperty("stub.error-rate", "0.0")),
+                    Double.parseDouble(System.getProperty("stub.lead-rate", "0.2")),
+                    Long.getLong("stub.stream-chunk-delay-ms", 20),
+                    Long.getLong("stub.seed", 42));
+        }
+    }
+
+    private static final String REPLY = "Claro! Temos algumas opções que podem combinar com você. "
+            + "Você prefere comprar ou alugar, e em qual bairro?";
+
+    private final Settings settings;
+    private final HttpServer server;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong leadsSent = new AtomicLong();
+
+    private OpenAiStubServer(Settings settings) throws IOException {
+        this.settings = settings;
+        this.server = HttpServer.create(new InetSocketAddress("localhost", settings.port()), 512);
+        this.server.createContext("/v1/chat/completions", this::handle);
+        this.server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    public static OpenAiStubServer start(Settings settings) {
+        try {
+            OpenAiStubServer stub = new OpenAiStubServer(settings);
+            stub.server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Não foi possível subir o stub da OpenAI", e);
+        }
+    }
+
+    public String url() {
+        return "http://localhost:" + server.getAddress().getPort() + "/v1/chat/completions";
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    public long leadsSent() {
+        return leadsSent.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long id = requests.incrementAndGet();
+            JsonNode body = mapper.readTree(exchange.getRequestBody());
+            String model = body.path("model").asText("gpt-4o-mini");
+            boolean stream = body.path("stream").asBoolean(false);
+            int promptChars = body.path("messages").toString().length();
+            // Sorteios de cada requisição derivados de seed + número da requisição: a N-ésima requisição
+            // tem sempre a mesma latência, erro e lead, seja qual for a thread que a atende
+            SplittableRandom random = requestRandom(id);
+
+            sleep(settings.latencyMs() + (settings.jitterMs() > 0 ? (long) (random.nextDouble() * settings.jitterMs()) : 0));
+
+            if (random.nextDouble() < settings.errorRate()) {
+                int status = id % 2 == 0 ? 429 : 500;
+                byte[] error = ("{\"error\":{\"message\":\"stub error\",\"type\":\""
+                        + (status == 429 ? "rate_limit_exceeded" : "server_error") + "\"}}").getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+
+            String content = REPLY;
+            if (random.nextDouble() < settings.leadRate()) {
+                leadsSent.incrementAndGet();
+                content += "\n|||LEAD_DATA_START|||\n{\"nome\": \"Visitante " + id + "\", \"telefone\": \"1199"
+                        + String.format("%07d", id % 10_000_000) + "\", \"email\": null, "
+                        + "\"interesse\": \"Compra de casa\", \"propertyId\": null}\n|||LEAD_DATA_END|||";
+            }
+
+            if (stream) {
+                writeStream(exchange, id, model, content);
+            } else {
+                writeCompletion(exchange, id, model, content, promptChars);
+            }
+        }
+    }
+
+    private SplittableRandom requestRandom(long id) {
+        return new SplittableRandom(settings.seed() + id * 0x9E3779B97F4A7C15L);
+    }
+
+    private void writeCompletion(HttpExchange exchange, long id, String model, String content, int promptChars) throws IOException {
+        ObjectNode root = mapper.createObjectNode();
+        root.put("id", "chatcmpl-stub-" + id);
+        root.put("object", "chat.completion");
+        root.put("created", System.currentTimeMillis() / 1000);
+        root.put("model", model);
+        ObjectNode choice = root.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("message").put("role", "assistant").put("content", content);
+        choice.put("finish_reason", "stop");
+        // Aproximação de ~4 caracteres por token, suficiente para exercitar a contabilidade de custo
+        int promptTokens = Math.max(1, promptChars / 4);
+        int completionTokens = Math.max(1, content.length() / 4);
+        root.putObject("usage")
+                .put("prompt_tokens", promptTokens)
+                .put("completion_tokens", completionTokens)
+                .put("total_tokens", promptTokens + completionTokens);
+
+        byte[] bytes = mapper.writeValueAsBytes(root);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    private void writeStream(HttpExchange exchange, long id, String model, String content) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        for (String token : content.split("(?<= )")) {
+            ObjectNode chunk = mapper.createObjectNode();
+            chunk.put("id", "chatcmpl-stub-" + id);
+            chunk.put("object", "chat.completion.chunk");
+            chunk.put("model", model);
+            chunk.putArray("choices").addObject().put("index", 0).putObject("delta").put("content", token);
+            out.write(("data: " + mapper.writeValueAsString(chunk) + "\n\n").getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            sleep(settings.streamChunkDelayMs());
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void sleep(long ms) {
+        if (ms <= 0) return;
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        Settings settings = Settings.fromSystemProperties();
+        OpenAiStubServer stub = start(settings);
+        System.out.println("Stub da OpenAI ouvindo em " + stub.url() + " com " + settings);
+        Thread.currentThread().join();
+    }
+}
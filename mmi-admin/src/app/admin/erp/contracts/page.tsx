@@ -362,6 +362,15 @@ export default function ContractsPage() {
 
   const handleInitiateGeneration = () => { if (selectedClauses.length === 0) return; setIsNameModalOpen(true) }
   
+  const waitForContractJob = async (jobId: string): Promise<string> => {
+    while (true) {
+      const { data: job } = await axios.get(`${API_URL}/api/contracts/jobs/${jobId}`)
+      if (job.status === 'COMPLETED') return job.contractUuid
+      if (job.status === 'FAILED') throw new Error(job.error || 'Falha ao gerar contrato')
+      await new Promise(resolve => setTimeout(resolve, 1000))
+    }
+  }
+
   const handleConfirmGeneration = async (contractTitle: string, files: File[]) => {
     // Garante a ordem da seleção
     const selected = selectedClauses
@@ -385,9 +394,11 @@ export default function ContractsPage() {
         });
       }
 
+      // O backend devolve um job; acompanha até o contrato ficar pronto
       const res = await axios.post(`${API_URL}/api/contracts`, formData)
-      
-      router.push(`/admin/erp/contracts/signatures/${res.data}`)
+      const contractUuid = await waitForContractJob(res.data.id)
+
+      router.push(`/admin/erp/contracts/signatures/${contractUuid}`)
     } catch (err) { 
       console.error(err);
       alert('Erro ao gerar contrato. Verifique o console ou o tamanho dos arquivos.'); 
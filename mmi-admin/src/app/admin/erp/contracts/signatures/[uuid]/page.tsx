@@ -19,7 +19,7 @@ const maskCPF = (value: string) => {
 interface Contract {
   uuid: string
   title?: string
-  pdfData: string // Base64 vindo do Java
+  pdfUrl?: string // Caminho do PDF no backend (/api/contracts/{uuid}/pdf)
   signatures: any[]
 }
 
@@ -27,7 +27,7 @@ const API_URL = process.env.NEXT_PUBLIC_API_URL
 
 export default function SignContractPage() {
   const [contract, setContract] = useState<Contract | null>(null)
-  const [pdfUrl, setPdfUrl] = useState<string | null>(null) // URL do Blob para o navegador
+  const [pdfUrl, setPdfUrl] = useState<string | null>(null) // URL do PDF para o navegador
   const [loading, setLoading] = useState(true)
   const [isSending, setIsSending] = useState(false)
   
@@ -43,10 +43,6 @@ export default function SignContractPage() {
   useEffect(() => {
     if (uuid) fetchContract()
     
-    // Limpeza de memória ao sair da página
-    return () => {
-      if (pdfUrl) URL.revokeObjectURL(pdfUrl)
-    }
   }, [uuid])
 
   const fetchContract = async () => {
@@ -56,19 +52,10 @@ export default function SignContractPage() {
       const contractData = res.data
       setContract(contractData)
 
-      // --- CORREÇÃO: Converter Base64 para Blob URL ---
-      if (contractData.pdfData) {
-        const byteCharacters = atob(contractData.pdfData)
-        const byteNumbers = new Array(byteCharacters.length)
-        for (let i = 0; i < byteCharacters.length; i++) {
-          byteNumbers[i] = byteCharacters.charCodeAt(i)
-        }
-        const byteArray = new Uint8Array(byteNumbers)
-        const blob = new Blob([byteArray], { type: 'application/pdf' })
-        const url = URL.createObjectURL(blob)
-        setPdfUrl(url)
+      // O PDF é servido direto pelo backend (com cache e Range), sem base64 no JSON
+      if (contractData.pdfUrl) {
+        setPdfUrl(`${API_URL}${contractData.pdfUrl}`)
       }
-      // ------------------------------------------------
 
     } catch (err) {
       console.error(err)